@@ -0,0 +1,33 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr.recorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Parse of the schedule of one day, including resolving the speakers
+ */
+@Name("devoxx.DayParse")
+@Label("Day Parse")
+@Category({"Devoxx", "Data"})
+@Description("Parse of the schedule file of one day, including resolving its speakers")
+public class JfrDayParseEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Slots")
+    public int slots;
+
+    @Label("Presentations")
+    public int presentations;
+}
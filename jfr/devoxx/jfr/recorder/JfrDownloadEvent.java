@@ -0,0 +1,34 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr.recorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Download of a schedule file or speaker details
+ */
+@Name("devoxx.Download")
+@Label("Download")
+@Category({"Devoxx", "Network"})
+@Description("Download of schedule or speaker data from the CFP server")
+public class JfrDownloadEvent extends jdk.jfr.Event {
+
+    @Label("URL")
+    public String url;
+
+    @Label("File")
+    @Description("The working file, null when read into memory")
+    public String file;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,29 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr.recorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Making sure a speaker photo is in the photo cache
+ */
+@Name("devoxx.PhotoCache")
+@Label("Photo Cache")
+@Category({"Devoxx", "Photos"})
+@Description("Making sure a speaker photo is in the photo cache, downloading it on a miss")
+public class JfrPhotoCacheEvent extends jdk.jfr.Event {
+
+    @Label("Speaker")
+    public String speaker;
+
+    @Label("URL")
+    public String url;
+
+    @Label("Hit")
+    @Description("The photo was already cached")
+    public boolean hit;
+}
@@ -0,0 +1,40 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr.recorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Getting the photo of a speaker for the screen
+ */
+@Name("devoxx.PhotoLoad")
+@Label("Photo Load")
+@Category({"Devoxx", "Photos"})
+@Description("Getting a speaker photo for the screen, from memory or decoded from the cache")
+public class JfrPhotoLoadEvent extends jdk.jfr.Event {
+
+    @Label("Speaker")
+    public String speaker;
+
+    @Label("Memory Hit")
+    @Description("The decoded photo was still in memory")
+    public boolean memoryHit;
+
+    @Label("Cache Hit")
+    @Description("The photo was read from the photo cache without downloading it")
+    public boolean cacheHit;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Decode Time")
+    @Timespan
+    public long decodeTime;
+}
@@ -0,0 +1,160 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr.recorder;
+
+import devoxx.jfr.DayParseEvent;
+import devoxx.jfr.DownloadEvent;
+import devoxx.jfr.PhotoCacheEvent;
+import devoxx.jfr.PhotoLoadEvent;
+import devoxx.jfr.Recorder;
+import devoxx.jfr.RoomSwitchEvent;
+import devoxx.jfr.ScreenDataEvent;
+import java.io.IOException;
+
+/**
+ * Writes the events of the application to Flight Recorder.  Loaded by
+ * name by devoxx.jfr.Flight, so it must keep its name and its public no
+ * argument constructor.
+ *
+ * Every event of the application begins its Flight Recorder event and
+ * copies its fields into it on commit.
+ */
+public final class JfrRecorder implements Recorder {
+
+    @Override
+    public DownloadEvent newDownloadEvent() {
+        return new DownloadEvent() {
+            private final JfrDownloadEvent event = new JfrDownloadEvent();
+
+            @Override
+            public void begin() {
+                event.begin();
+            }
+
+            @Override
+            public void commit() {
+                event.url = url;
+                event.file = file;
+                event.bytes = bytes;
+                event.success = success;
+                event.commit();
+            }
+        };
+    }
+
+    @Override
+    public DayParseEvent newDayParseEvent() {
+        return new DayParseEvent() {
+            private final JfrDayParseEvent event = new JfrDayParseEvent();
+
+            @Override
+            public void begin() {
+                event.begin();
+            }
+
+            @Override
+            public void commit() {
+                event.file = file;
+                event.bytes = bytes;
+                event.slots = slots;
+                event.presentations = presentations;
+                event.commit();
+            }
+        };
+    }
+
+    @Override
+    public PhotoCacheEvent newPhotoCacheEvent() {
+        return new PhotoCacheEvent() {
+            private final JfrPhotoCacheEvent event = new JfrPhotoCacheEvent();
+
+            @Override
+            public void begin() {
+                event.begin();
+            }
+
+            @Override
+            public void commit() {
+                event.speaker = speaker;
+                event.url = url;
+                event.hit = hit;
+                event.commit();
+            }
+        };
+    }
+
+    @Override
+    public PhotoLoadEvent newPhotoLoadEvent() {
+        return new PhotoLoadEvent() {
+            private final JfrPhotoLoadEvent event = new JfrPhotoLoadEvent();
+
+            @Override
+            public void begin() {
+                event.begin();
+            }
+
+            @Override
+            public void commit() {
+                event.speaker = speaker;
+                event.memoryHit = memoryHit;
+                event.cacheHit = cacheHit;
+                event.bytes = bytes;
+                event.decodeTime = decodeTime;
+                event.commit();
+            }
+        };
+    }
+
+    @Override
+    public RoomSwitchEvent newRoomSwitchEvent() {
+        return new RoomSwitchEvent() {
+            private final JfrRoomSwitchEvent event = new JfrRoomSwitchEvent();
+
+            @Override
+            public void begin() {
+                event.begin();
+            }
+
+            @Override
+            public void commit() {
+                event.fromRoom = fromRoom;
+                event.toRoom = toRoom;
+                event.success = success;
+                event.commit();
+            }
+        };
+    }
+
+    @Override
+    public ScreenDataEvent newScreenDataEvent() {
+        return new ScreenDataEvent() {
+            private final JfrScreenDataEvent event = new JfrScreenDataEvent();
+
+            @Override
+            public void begin() {
+                event.begin();
+            }
+
+            @Override
+            public void commit() {
+                event.session = session;
+                event.speakers = speakers;
+                event.changedTexts = changedTexts;
+                event.layoutRequests = layoutRequests;
+                event.prepared = prepared;
+                event.commit();
+            }
+        };
+    }
+
+    @Override
+    public void startRecording(final int maxAgeHours, final int maxSizeMB) {
+        RollingRecording.start(maxAgeHours, maxSizeMB);
+    }
+
+    @Override
+    public void dumpRecording() throws IOException {
+        RollingRecording.dump();
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr.recorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Switch to another room, until the schedule of that room is shown
+ */
+@Name("devoxx.RoomSwitch")
+@Label("Room Switch")
+@Category({"Devoxx", "Screen"})
+@Description("Switch to another room, until the schedule of the new room is shown")
+public class JfrRoomSwitchEvent extends jdk.jfr.Event {
+
+    @Label("From Room")
+    public String fromRoom;
+
+    @Label("To Room")
+    public String toRoom;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,37 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr.recorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Rebuild of the screen for a new session
+ */
+@Name("devoxx.ScreenData")
+@Label("Screen Data")
+@Category({"Devoxx", "Screen"})
+@Description("Rebuild of the screen for a new session or schedule")
+public class JfrScreenDataEvent extends jdk.jfr.Event {
+
+    @Label("Session")
+    public String session;
+
+    @Label("Speakers")
+    public int speakers;
+
+    @Label("Changed Texts")
+    @Description("The number of session texts that changed")
+    public int changedTexts;
+
+    @Label("Layout Requests")
+    @Description("The number of layout requests made by the session labels")
+    public int layoutRequests;
+
+    @Label("Prepared")
+    @Description("The screen prepared ahead of the session boundary was used")
+    public boolean prepared;
+}
@@ -0,0 +1,78 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr.recorder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * The continuous recording kept on the device, limited in age and size.
+ * Only used through JfrRecorder, when Flight Recorder is available.
+ */
+final class RollingRecording {
+
+    private final static Logger LOGGER = Logger.getLogger(RollingRecording.class.getName());
+
+    private static final String NAME = "devoxx";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static Recording recording;
+
+    private RollingRecording() {
+    }
+
+    static synchronized void start(final int maxAgeHours, final int maxSizeMB) {
+        if (recording != null) {
+            return;
+        }
+
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+        } catch (IOException | java.text.ParseException e) {
+            LOGGER.log(Level.WARNING, "Unable to load the default recording settings", e);
+            recording = new Recording();
+        }
+
+        recording.setName(NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(Duration.ofHours(maxAgeHours));
+        recording.setMaxSize(maxSizeMB * 1024L * 1024L);
+        recording.setDumpOnExit(true);
+        try {
+            recording.setDestination(Paths.get("devoxx-exit.jfr"));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Recording will not be written on exit", e);
+        }
+
+        recording.enable(JfrDownloadEvent.class);
+        recording.enable(JfrDayParseEvent.class);
+        recording.enable(JfrPhotoCacheEvent.class);
+        recording.enable(JfrPhotoLoadEvent.class);
+        recording.enable(JfrScreenDataEvent.class);
+        recording.enable(JfrRoomSwitchEvent.class);
+
+        recording.start();
+        LOGGER.log(Level.INFO, "Flight recording started, keeping {0} hours, at most {1} MB",
+                new Object[]{maxAgeHours, maxSizeMB});
+    }
+
+    static synchronized void dump() throws IOException {
+        if (recording == null) {
+            LOGGER.info("No flight recording running, set flight-recording = true");
+            return;
+        }
+
+        final Path file = Paths.get("devoxx-" + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+        recording.dump(file);
+        LOGGER.log(Level.INFO, "Flight recording written to {0}", file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import devoxx.model.Presentation;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+
+/**
+ * Local stand-in for the CFP REST API, so the performance test doesn't
+ * depend on the network or on the schedule of a real conference.
+ *
+ * Serves the schedule of ROOMS rooms (room1 to room9) for the DAYS days
+ * from START_DATE, back to back sessions of half an hour from 09:30 to
+ * 18:30, the details of the speakers and a photo per speaker.  Everything
+ * is generated from a fixed seed, so every run sees the same data.
+ */
+final class FixtureServer {
+
+    static final LocalDate START_DATE = LocalDate.of(2016, 11, 9);
+    static final int DAYS = 3;
+    static final int ROOMS = 9;
+
+    private static final LocalTime FIRST_SESSION = LocalTime.of(9, 30);
+    private static final LocalTime LAST_SESSION_END = LocalTime.of(18, 30);
+    private static final int SESSION_MINUTES = 30;
+
+    private static final int SPEAKERS = 120;
+    private static final int PHOTO_SIZE = 240;
+
+    private static final String[] WORDS = {
+        "Java", "Streams", "Modules", "Reactive", "Microservices", "Kotlin",
+        "JavaFX", "Cloud", "Containers", "Performance", "Security", "Testing",
+        "Machine", "Learning", "Serverless", "Functional", "Concurrency",
+        "Architecture", "Graal", "Observability", "Kubernetes", "Events"
+    };
+    private static final String[] TRACKS = {
+        "Java Language", "Cloud, Containers & Infrastructure", "Modern Web",
+        "Mind the Geek", "Architecture & Security", "Methodology & Culture"
+    };
+    private static final String[] TALK_TYPES = {
+        "Conference", "Tools-in-Action", "University", "Hands-on Labs"
+    };
+    private static final String[] NAMES = {
+        "Anna", "Bart", "Chloe", "Dirk", "Emma", "Filip", "Greet", "Hans",
+        "Ines", "Jan", "Katrien", "Lars", "Marie", "Nico", "Olga", "Pieter"
+    };
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, byte[]> photos = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    /**
+     * Constructor, starts serving on a free port of the loopback interface
+     *
+     * @throws IOException If the server can't be started
+     */
+    FixtureServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newFixedThreadPool(4, r -> {
+            final Thread thread = new Thread(r, "fixture-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Get the base URL, to use as devoxx-host
+     *
+     * @return The URL, ending with a slash
+     */
+    String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Get the number of requests served so far
+     *
+     * @return The number of requests
+     */
+    int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Write the shipped configuration with the data from this server
+     *
+     * @param file The properties file to write
+     * @param settings Properties of the run, they override the shipped ones
+     * @return The file
+     * @throws IOException If the file can't be written
+     */
+    Path writeProperties(final Path file, final String settings) throws IOException {
+        final StringBuilder text = new StringBuilder();
+        try (InputStream in = Devoxx.class.getResourceAsStream("resources/signage.properties")) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                text.append(new String(buffer, 0, read, StandardCharsets.ISO_8859_1));
+            }
+        }
+
+        // Later keys win
+        text.append('\n')
+            .append("devoxx-host = ").append(getBaseUrl()).append('\n')
+            .append("devoxx-start-date = ").append(START_DATE).append('\n')
+            .append("conference-days = ").append(DAYS).append('\n')
+            .append("image-cache = ").append(Paths.get("photos").toAbsolutePath()).append('\n')
+            .append("logging-level = INFO\n")
+            .append("flight-recording = false\n")
+            .append("watchdog-interval = 0\n")
+            .append(settings);
+
+        Files.write(file, text.toString().getBytes(StandardCharsets.ISO_8859_1));
+        return file;
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        final String[] path = exchange.getRequestURI().getPath().substring(1).split("/");
+
+        byte[] body = null;
+        String type = "application/json";
+        try {
+            if (path.length == 3 && "rooms".equals(path[0])) {
+                body = schedule(path[1], path[2]).getBytes(StandardCharsets.UTF_8);
+            } else if (path.length == 2 && "speakers".equals(path[0])) {
+                final String speaker = speaker(path[1]);
+                body = speaker == null ? null : speaker.getBytes(StandardCharsets.UTF_8);
+            } else if (path.length == 2 && "photos".equals(path[0])) {
+                body = photos.computeIfAbsent(path[1], FixtureServer::photo);
+                type = "image/png";
+            }
+        } catch (NumberFormatException e) {
+            body = null;
+        }
+
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", type);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * The schedule of a room for a day, in the format of the CFP API
+     */
+    private String schedule(final String roomId, final String day) {
+        final StringBuilder json = new StringBuilder("{\"slots\":[");
+
+        final int room = roomNumber(roomId);
+        for (int i = 0; i < DAYS && room > 0; i++) {
+            final LocalDate date = START_DATE.plusDays(i);
+            if (!date.getDayOfWeek().name().equalsIgnoreCase(day)) {
+                continue;
+            }
+
+            LocalDateTime from = date.atTime(FIRST_SESSION);
+            int slot = 0;
+            while (from.toLocalTime().isBefore(LAST_SESSION_END)) {
+                final LocalDateTime to = from.plusMinutes(SESSION_MINUTES);
+                if (slot > 0) {
+                    json.append(',');
+                }
+                slot(json, roomId, room, date.getDayOfWeek(), slot++, from, to);
+                from = to;
+            }
+        }
+
+        return json.append("]}").toString();
+    }
+
+    private void slot(final StringBuilder json, final String roomId, final int room,
+                      final DayOfWeek day, final int slot,
+                      final LocalDateTime from, final LocalDateTime to) {
+        final String id = String.format("%s-%d-%02d", roomId, day.getValue(), slot);
+        final Random random = new Random(id.hashCode());
+
+        json.append("{\"slotId\":\"").append(id)
+            .append("\",\"roomId\":\"").append(roomId)
+            .append("\",\"day\":\"").append(day.name().toLowerCase(Locale.ENGLISH))
+            .append("\",\"fromTimeMillis\":").append(from.toEpochSecond(Presentation.ZONE) * 1000)
+            .append(",\"toTimeMillis\":").append(to.toEpochSecond(Presentation.ZONE) * 1000)
+            .append(",\"talk\":{\"id\":\"").append(id)
+            .append("\",\"title\":\"").append(words(random, 3 + random.nextInt(6)))
+            .append("\",\"summary\":\"").append(words(random, 40 + random.nextInt(80)))
+            .append("\",\"track\":\"").append(TRACKS[random.nextInt(TRACKS.length)])
+            .append("\",\"talkType\":\"").append(TALK_TYPES[random.nextInt(TALK_TYPES.length)])
+            .append("\",\"speakers\":[");
+
+        final int speakers = 1 + random.nextInt(2);
+        for (int i = 0; i < speakers; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            final int speaker = (room * 31 + slot * 7 + day.getValue() * 13 + i * 59) % SPEAKERS;
+            json.append("{\"link\":{\"href\":\"").append(getBaseUrl()).append("speakers/")
+                .append(speakerId(speaker)).append("\"}}");
+        }
+        json.append("]}}");
+    }
+
+    private String speaker(final String uuid) {
+        final int speaker = Integer.parseInt(uuid.substring(uuid.lastIndexOf('-') + 1));
+        if (speaker < 0 || speaker >= SPEAKERS) {
+            return null;
+        }
+        return "{\"uuid\":\"" + uuid
+                + "\",\"firstName\":\"" + NAMES[speaker % NAMES.length]
+                + "\",\"lastName\":\"" + NAMES[(speaker / NAMES.length + speaker) % NAMES.length] + "son"
+                + "\",\"avatarURL\":\"" + getBaseUrl() + "photos/" + uuid + ".png\"}";
+    }
+
+    /**
+     * A photo with some noise, so it doesn't compress to nothing
+     */
+    private static byte[] photo(final String name) {
+        final Random random = new Random(name.hashCode());
+        final BufferedImage image = new BufferedImage(PHOTO_SIZE, PHOTO_SIZE, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+        graphics.fillRect(0, 0, PHOTO_SIZE, PHOTO_SIZE);
+        graphics.dispose();
+        for (int i = 0; i < PHOTO_SIZE * PHOTO_SIZE / 4; i++) {
+            image.setRGB(random.nextInt(PHOTO_SIZE), random.nextInt(PHOTO_SIZE), random.nextInt(0xFFFFFF));
+        }
+
+        final ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", png);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return png.toByteArray();
+    }
+
+    private static String speakerId(final int speaker) {
+        return String.format("fixture-speaker-%03d", speaker);
+    }
+
+    private static int roomNumber(final String roomId) {
+        if (!roomId.startsWith("room")) {
+            return 0;
+        }
+        try {
+            final int room = Integer.parseInt(roomId.substring("room".length()));
+            return room >= 1 && room <= ROOMS ? room : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String words(final Random random, final int count) {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
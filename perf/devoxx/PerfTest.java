@@ -0,0 +1,341 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import devoxx.model.Presentation;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.event.Event;
+import javafx.scene.Scene;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.stage.Stage;
+
+/**
+ * Performance test of the real application: starts Devoxx in test mode
+ * against a local FixtureServer, drives it by pressing keys on its scene,
+ * the same way as with a keyboard plugged into the Pi, and writes a report
+ * that can be compared between commits.
+ *
+ * Measures
+ * <ul>
+ * <li>the cold start, the time since the JVM started until the first frame
+ * and until the schedule is shown</li>
+ * <li>the room switch latency, from pressing a digit key until the first
+ * pulse after the schedule of the new room is shown, which includes
+ * retrieving the schedule from the fixture server</li>
+ * <li>the transition pulse time, the longest interval between two pulses
+ * after moving the test time to the next session with the right arrow</li>
+ * <li>the steady state heap, the heap used after the scenarios and a full
+ * garbage collection</li>
+ * </ul>
+ *
+ * Run with gradle perfTest, which runs it headless with Monocle.  The
+ * report is written to the file of the perf.report system property and
+ * compared with the report of the perf.baseline system property if set.
+ */
+public class PerfTest extends Devoxx {
+
+    private final static Logger LOGGER = Logger.getLogger(PerfTest.class.getName());
+
+    private static final String START_ROOM = "room1";
+    private static final int[] WARMUP_ROOMS = {6, 7, 8};
+    private static final int[] SWITCH_ROOMS = {2, 3, 4, 5};
+    private static final int ROOM_SWITCHES = 12;
+    private static final int TRANSITIONS = 12;
+
+    private static final long TIMEOUT_SECONDS = 60;
+    private static final long SETTLE_MILLIS = 2000;
+    private static final long TRANSITION_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static final CountDownLatch STARTED = new CountDownLatch(1);
+    private static volatile PerfTest application;
+    private static FixtureServer server;
+
+    private Scene scene;
+
+    @Override
+    public void start(final Stage stage) throws Exception {
+        super.start(stage);
+        scene = stage.getScene();
+        application = this;
+        STARTED.countDown();
+    }
+
+    /**
+     * Start the fixture server and the application, the scenarios run on a
+     * driver thread
+     *
+     * @param args Not used
+     */
+    public static void main(final String[] args) {
+        final Path properties;
+        try {
+            server = new FixtureServer();
+            properties = server.writeProperties(Paths.get("perf.properties"),
+                    "operating-mode = TEST\n"
+                    + "test-day = 0\n"
+                    + "test-time = 09:45\n"
+                    + "test-scale = 1.0\n");
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Unable to set up the performance test", e);
+            System.exit(1);
+            return;
+        }
+
+        final Thread driver = new Thread(PerfTest::drive, "perf-driver");
+        driver.setDaemon(true);
+        driver.start();
+
+        launch(PerfTest.class, START_ROOM, properties.toString());
+    }
+
+    private static void drive() {
+        try {
+            if (!STARTED.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new TimeoutException("The application did not start");
+            }
+
+            final Map<String, Object> metrics = new LinkedHashMap<>();
+
+            final long scheduleShown = waitFor(() -> getStartupTime("schedule shown"));
+            metrics.put("coldStart.firstFrameMs", getStartupTime("first frame"));
+            metrics.put("coldStart.scheduleShownMs", scheduleShown);
+            Thread.sleep(SETTLE_MILLIS);
+
+            for (int room : WARMUP_ROOMS) {
+                switchRoom(room);
+            }
+
+            final List<Long> switches = new ArrayList<>();
+            for (int i = 0; i < ROOM_SWITCHES; i++) {
+                switches.add(switchRoom(SWITCH_ROOMS[i % SWITCH_ROOMS.length]));
+            }
+            putStatistics(metrics, "roomSwitch", switches);
+            Thread.sleep(SETTLE_MILLIS);
+
+            final List<Long> transitions = new ArrayList<>();
+            for (int i = 0; transitions.size() < TRANSITIONS; i++) {
+                if (i == 2 * TRANSITIONS) {
+                    throw new IllegalStateException("The test time moved past the sessions of the fixture");
+                }
+                final long pulse = transition();
+                if (pulse >= 0) {
+                    transitions.add(pulse);
+                }
+            }
+            putStatistics(metrics, "transitionPulse", transitions);
+
+            Thread.sleep(SETTLE_MILLIS);
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+                Thread.sleep(200);
+            }
+            final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            metrics.put("heap.steadyStateUsedKB", heap.getUsed() / 1024);
+            metrics.put("heap.committedKB", heap.getCommitted() / 1024);
+
+            metrics.put("fixture.requests", server.getRequests());
+
+            writeReport(metrics);
+            System.exit(0);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Performance test failed", e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Press a digit key and wait until the schedule of the room is shown
+     *
+     * @return The latency in nanoseconds
+     */
+    private static long switchRoom(final int room) throws Exception {
+        final String roomId = "room" + room;
+        final CompletableFuture<Long> shown = new CompletableFuture<>();
+
+        Platform.runLater(() -> {
+            final RoomScreen screen = application.getPrimary();
+            final long start = System.nanoTime();
+            application.press(KeyCode.valueOf("DIGIT" + room));
+
+            new AnimationTimer() {
+                @Override
+                public void handle(final long now) {
+                    if (roomId.equals(screen.getDataFetcher().getSnapshot().roomId)
+                            && screen.getCurrentPresentation() != null) {
+                        stop();
+                        shown.complete(System.nanoTime() - start);
+                    }
+                }
+            }.start();
+        });
+
+        final long latency = shown.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        LOGGER.log(Level.INFO, "Switched to {0} in {1} ms", new Object[]{roomId, millis(latency)});
+        return latency;
+    }
+
+    /**
+     * Move the test time on by half an hour with the right arrow and
+     * measure the pulses while the next session is shown
+     *
+     * @return The longest interval between two pulses in nanoseconds, -1
+     * when the time moved on without a session change
+     */
+    private static long transition() throws Exception {
+        final CompletableFuture<Long> measured = new CompletableFuture<>();
+
+        Platform.runLater(() -> {
+            final RoomScreen screen = application.getPrimary();
+            final Presentation before = screen.getCurrentPresentation();
+            final long start = System.nanoTime();
+            application.press(KeyCode.RIGHT);
+            final boolean changed = screen.getCurrentPresentation() != before;
+
+            new AnimationTimer() {
+                private long last = start;
+                private long longest;
+
+                @Override
+                public void handle(final long now) {
+                    final long time = System.nanoTime();
+                    longest = Math.max(longest, time - last);
+                    last = time;
+                    if (time - start > TRANSITION_WINDOW_NANOS) {
+                        stop();
+                        measured.complete(changed ? longest : -1);
+                    }
+                }
+            }.start();
+        });
+
+        return measured.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Press a key on the scene, through the key handler of the application
+     */
+    private void press(final KeyCode code) {
+        Event.fireEvent(scene, new KeyEvent(KeyEvent.KEY_PRESSED, "", "", code, false, false, false, false));
+        Event.fireEvent(scene, new KeyEvent(KeyEvent.KEY_RELEASED, "", "", code, false, false, false, false));
+    }
+
+    private static <T> T waitFor(final Supplier<T> reached) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        T value = reached.get();
+        while (value == null) {
+            if (System.nanoTime() > deadline) {
+                throw new TimeoutException("The schedule was not shown");
+            }
+            Thread.sleep(50);
+            value = reached.get();
+        }
+        return value;
+    }
+
+    private static void putStatistics(final Map<String, Object> metrics, final String name,
+                                      final List<Long> nanos) {
+        final List<Long> sorted = new ArrayList<>(nanos);
+        Collections.sort(sorted);
+
+        long total = 0;
+        for (long value : sorted) {
+            total += value;
+        }
+
+        metrics.put(name + ".medianMs", millis(sorted.get(sorted.size() / 2)));
+        metrics.put(name + ".meanMs", millis(total / sorted.size()));
+        metrics.put(name + ".maxMs", millis(sorted.get(sorted.size() - 1)));
+    }
+
+    private static double millis(final long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    /**
+     * Write the report as JSON, the metrics in a flat object so two reports
+     * can be compared line by line
+     */
+    private static void writeReport(final Map<String, Object> metrics) throws IOException {
+        final Path report = Paths.get(System.getProperty("perf.report", "perf-report.json"));
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+
+        final StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"commit\": \"").append(System.getProperty("perf.commit", "unknown")).append("\",\n")
+            .append("  \"time\": \"").append(LocalDateTime.now().withNano(0)).append("\",\n")
+            .append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n")
+            .append("  \"metrics\": {\n");
+        int i = 0;
+        for (Map.Entry<String, Object> metric : metrics.entrySet()) {
+            json.append("    \"").append(metric.getKey()).append("\": ").append(metric.getValue())
+                .append(++i < metrics.size() ? ",\n" : "\n");
+        }
+        json.append("  }\n}\n");
+
+        try (Writer out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            out.write(json.toString());
+        }
+        LOGGER.log(Level.INFO, "Performance report written to {0}:\n{1}", new Object[]{report, json});
+
+        final String baseline = System.getProperty("perf.baseline");
+        if (baseline != null && !baseline.isEmpty()) {
+            compare(Paths.get(baseline), metrics);
+        }
+    }
+
+    /**
+     * Log the change of every metric since the baseline report
+     */
+    private static void compare(final Path baseline, final Map<String, Object> metrics) throws IOException {
+        final JsonObject base;
+        try (Reader reader = Files.newBufferedReader(baseline, StandardCharsets.UTF_8)) {
+            base = new JsonParser().parse(reader).getAsJsonObject();
+        }
+        final JsonObject before = base.getAsJsonObject("metrics");
+
+        final StringBuilder changes = new StringBuilder();
+        for (Map.Entry<String, Object> metric : metrics.entrySet()) {
+            final JsonElement old = before.get(metric.getKey());
+            if (old == null || !old.isJsonPrimitive() || !(metric.getValue() instanceof Number)) {
+                continue;
+            }
+            final double was = old.getAsDouble();
+            final double now = ((Number) metric.getValue()).doubleValue();
+            changes.append(String.format("%n  %-28s %12.2f -> %12.2f", metric.getKey(), was, now));
+            if (was != 0) {
+                changes.append(String.format(" (%+.1f%%)", (now - was) * 100 / was));
+            }
+        }
+        LOGGER.log(Level.INFO, "Compared with {0} of {1}:{2}",
+                new Object[]{baseline, base.get("commit").getAsString(), changes});
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.application.Application;
+
+/**
+ * Replays the conference of the FixtureServer headless, with the replay
+ * limits of the shipped configuration.  Devoxx exits with status 5 when the
+ * replay found an anomaly, e.g. a display update without a session change
+ * that allocated more than replay-max-idle-allocation, so the build fails.
+ *
+ * Run with gradle replayCheck, which is part of gradle check.  It is also
+ * the training run of gradle cdsClassList.
+ */
+final class ReplayCheck {
+
+    private final static Logger LOGGER = Logger.getLogger(ReplayCheck.class.getName());
+
+    private static final String ROOM = "room1";
+
+    private ReplayCheck() {
+    }
+
+    /**
+     * Start the fixture server and replay its schedule
+     *
+     * @param args Not used
+     */
+    public static void main(final String[] args) {
+        final Path properties;
+        try {
+            properties = new FixtureServer().writeProperties(Paths.get("replay.properties"),
+                    "operating-mode = REPLAY\n"
+                    + "replay-headless = true\n"
+                    + "replay-speed = 600\n");
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Unable to set up the replay", e);
+            System.exit(1);
+            return;
+        }
+
+        Application.launch(Devoxx.class, ROOM, properties.toString());
+
+        // Devoxx exits with the result of the replay, returning means it never ran
+        LOGGER.severe("The replay did not finish");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,80 @@
+#!/bin/sh
+#
+# Start the Devoxx signage app with an AppCDS (class data sharing) archive.
+#
+# The archive only works with the JVM that created it, so it is created on
+# the device itself when it's missing or older than the jar, from the list
+# of classes the application loads.  Copy build/cds/classes.lst of
+# gradle cdsArchive next to this script: it was recorded by a replay
+# against the fixture server of the build.  Without it a training run (a
+# headless replay of the conference from devoxx-host) records the list on
+# the device.  When the training or the archive fails the JVM simply starts
+# without it.
+#
+# The app exits with status 6 when its resource watchdog asks for a fresh
+# start, the script then starts it again.
+#
+# Usage: devoxx-cds.sh ROOM [PROPERTIES]
+#
+
+ROOM=${1:?Please specify a room to display}
+PROPS=${2:-signage.properties}
+
+DIR=$(cd "$(dirname "$0")" && pwd)
+JAVA=${JAVA:-java}
+JAVA_OPTS=${JAVA_OPTS:--Xmx256m -Dfile.encoding=UTF-8}
+CP=${CP:-$DIR/Devoxx.jar:$DIR/gson-1.4.jar}
+
+CDS_DIR=${CDS_DIR:-$DIR/cds}
+ARCHIVE=$CDS_DIR/devoxx.jsa
+CLASSLIST=$CDS_DIR/classes.lst
+
+# JDK 8 only has AppCDS as a commercial feature
+case "$("$JAVA" -version 2>&1)" in
+    *'"1.8'*) CDS_FLAGS="-XX:+UnlockCommercialFeatures -XX:+UseAppCDS" ;;
+    *) CDS_FLAGS="" ;;
+esac
+
+JAR=${CP%%:*}
+if [ ! -f "$ARCHIVE" ] || [ "$JAR" -nt "$ARCHIVE" ]; then
+    echo "Creating class data sharing archive $ARCHIVE"
+    mkdir -p "$CDS_DIR"
+
+    if [ -f "$DIR/classes.lst" ]; then
+        CLASSLIST=$DIR/classes.lst
+    else
+        grep -v -e '^ *operating-mode' -e '^ *replay-headless' -e '^ *replay-speed' \
+            -e '^ *flight-recording' -e '^ *watchdog-interval' "$PROPS" > "$CDS_DIR/training.properties"
+        cat >> "$CDS_DIR/training.properties" <<PROPERTIES
+operating-mode = REPLAY
+replay-headless = true
+replay-speed = 600
+flight-recording = false
+watchdog-interval = 0
+PROPERTIES
+
+        "$JAVA" $CDS_FLAGS -Xshare:off -XX:DumpLoadedClassList="$CLASSLIST" $JAVA_OPTS \
+            -cp "$CP" devoxx.Devoxx "$ROOM" "$CDS_DIR/training.properties"
+
+        # A replay that found an anomaly (5) still loaded all the classes,
+        # anything else means it never got past the startup
+        STATUS=$?
+        if [ "$STATUS" -ne 0 ] && [ "$STATUS" -ne 5 ]; then
+            echo "Training run failed with status $STATUS, starting without the archive"
+            rm -f "$CLASSLIST" "$ARCHIVE"
+        fi
+    fi
+
+    if [ -f "$CLASSLIST" ]; then
+        "$JAVA" $CDS_FLAGS -Xshare:dump -XX:SharedClassListFile="$CLASSLIST" \
+            -XX:SharedArchiveFile="$ARCHIVE" -cp "$CP" || rm -f "$ARCHIVE"
+    fi
+fi
+
+while true; do
+    "$JAVA" $CDS_FLAGS -Xshare:auto -XX:SharedArchiveFile="$ARCHIVE" $JAVA_OPTS \
+        -cp "$CP" devoxx.Devoxx "$ROOM" "$PROPS"
+    STATUS=$?
+    [ "$STATUS" -eq 6 ] || exit "$STATUS"
+    echo "Restarting the Devoxx signage app"
+done
@@ -0,0 +1,207 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Log handler that never blocks the thread that logs, e.g. the FX
+ * application thread or the data refresh thread, on console I/O.
+ *
+ * A record is only stored in a ring of the most recent records, a writer
+ * thread formats and writes the new records to the console (stderr, like
+ * the ConsoleHandler) in batches, every second or as soon as a batch is
+ * full or a SEVERE record comes in.  Records are formatted on the writer
+ * thread, so a record below the level of the handler costs nothing and a
+ * record that is logged costs a lock and an array store.  When the writer
+ * falls behind by more than the ring, the oldest records are dropped and
+ * the number dropped is written instead.
+ *
+ * The ring keeps the recent records after they were written, dump writes
+ * them all to a file, e.g. to see what happened before a problem without
+ * running at a finer logging level all day.
+ */
+public final class AsyncLogHandler extends Handler {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final long FLUSH_MILLIS = 1000;
+    private static final int BATCH = 64;
+
+    private final LogRecord[] ring;
+    private final Writer out;
+    private final Thread writer;
+
+    private long logged;
+    private long written;
+    private volatile boolean closed;
+
+    /**
+     * Constructor, starts the writer thread
+     *
+     * @param ringSize The number of recent records kept
+     */
+    public AsyncLogHandler(final int ringSize) {
+        ring = new LogRecord[Math.max(ringSize, BATCH)];
+        out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(FileDescriptor.err), StandardCharsets.UTF_8));
+        setFormatter(new SimpleFormatter());
+
+        writer = new Thread(this::writeLoop, "devoxx-log");
+        writer.setDaemon(true);
+        writer.start();
+
+        // Write what is left when the application exits
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "devoxx-log-close"));
+    }
+
+    @Override
+    public void publish(final LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+
+        // The caller can't be inferred from the stack on the writer thread,
+        // the loggers are named after their class
+        if (record.getLoggerName() != null) {
+            record.setSourceClassName(record.getLoggerName());
+        }
+
+        synchronized (this) {
+            ring[(int) (logged % ring.length)] = record;
+            logged++;
+            if (logged - written >= BATCH || record.getLevel().intValue() >= Level.SEVERE.intValue()) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Wake the writer thread to write the pending records
+     */
+    @Override
+    public synchronized void flush() {
+        notifyAll();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        synchronized (this) {
+            notifyAll();
+        }
+
+        try {
+            writer.join(FLUSH_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeBatch();
+    }
+
+    private void writeLoop() {
+        while (!closed) {
+            synchronized (this) {
+                if (logged == written) {
+                    try {
+                        wait(FLUSH_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            writeBatch();
+        }
+    }
+
+    /**
+     * Format and write the records logged since the last batch, only
+     * taking them from the ring holds the lock
+     */
+    private void writeBatch() {
+        final long dropped;
+        final LogRecord[] batch;
+        synchronized (this) {
+            if (logged == written) {
+                return;
+            }
+
+            final long first = Math.max(written, logged - ring.length);
+            dropped = first - written;
+            batch = new LogRecord[(int) (logged - first)];
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = ring[(int) ((first + i) % ring.length)];
+            }
+            written = logged;
+        }
+
+        synchronized (out) {
+            try {
+                if (dropped > 0) {
+                    out.write(dropped + " log records dropped\n");
+                }
+                for (LogRecord record : batch) {
+                    out.write(format(record));
+                }
+                out.flush();
+            } catch (IOException e) {
+                reportError("Unable to write the log", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    private String format(final LogRecord record) {
+        try {
+            return getFormatter().format(record);
+        } catch (RuntimeException e) {
+            reportError("Unable to format a log record", e, ErrorManager.FORMAT_FAILURE);
+            return record.getMessage() + "\n";
+        }
+    }
+
+    /**
+     * Write the records in the ring to devoxx-<time>.log in the working
+     * directory.
+     *
+     * @return The file written
+     * @throws IOException If the file could not be written
+     */
+    public Path dump() throws IOException {
+        final LogRecord[] recent;
+        synchronized (this) {
+            final long first = Math.max(0, logged - ring.length);
+            recent = new LogRecord[(int) (logged - first)];
+            for (int i = 0; i < recent.length; i++) {
+                recent[i] = ring[(int) ((first + i) % ring.length)];
+            }
+        }
+
+        final Path file = Paths.get("devoxx-" + LocalDateTime.now().format(FILE_TIME) + ".log");
+        try (Writer dump = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (LogRecord record : recent) {
+                dump.write(format(record));
+            }
+        }
+        return file;
+    }
+}
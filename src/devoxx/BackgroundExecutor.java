@@ -0,0 +1,97 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.application.Platform;
+
+/**
+ * Executor for all blocking network and disk I/O so it never runs on the
+ * JavaFX application thread.  Results are handed back to the FX thread by
+ * the caller using Platform.runLater().
+ *
+ * On a runtime that supports virtual threads (JDK 21+) every task gets its
+ * own virtual thread, otherwise a small pool of daemon threads is used
+ * (the Pi JDK 8 case).
+ */
+public final class BackgroundExecutor {
+
+    private final static Logger LOGGER = Logger.getLogger(BackgroundExecutor.class.getName());
+
+    private static final int PLATFORM_THREADS = 4;
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private static volatile boolean fxThreadCheck = false;
+
+    private BackgroundExecutor() {
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            LOGGER.fine("Background I/O uses virtual threads");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.fine("Virtual threads not available, using a platform thread pool");
+        }
+
+        final AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(PLATFORM_THREADS, r -> {
+            Thread t = new Thread(r, "devoxx-io-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Enable or disable the debug check for blocking calls on the FX thread.
+     *
+     * @param enabled true to log every blocking call made on the FX thread
+     */
+    public static void setFxThreadCheck(final boolean enabled) {
+        fxThreadCheck = enabled;
+    }
+
+    /**
+     * Run the given task in the background.
+     *
+     * @param task The blocking task
+     */
+    public static void execute(final Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+    /**
+     * Compute a value in the background.
+     *
+     * @param <T> The type of the result
+     * @param supplier The blocking computation
+     * @return A future completed with the result
+     */
+    public static <T> CompletableFuture<T> supply(final Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, EXECUTOR);
+    }
+
+    /**
+     * Debug check to be called at the start of every blocking operation.
+     * When enabled, a call made on the FX application thread is logged
+     * together with the stack trace of the offending caller.
+     *
+     * @param operation Description of the blocking operation
+     */
+    public static void checkNotFxThread(final String operation) {
+        if (fxThreadCheck && Platform.isFxApplicationThread()) {
+            LOGGER.log(Level.WARNING, "Blocking call on the FX thread: " + operation,
+                    new IllegalStateException("Blocking I/O on FX application thread"));
+        }
+    }
+}
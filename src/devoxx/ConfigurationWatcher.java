@@ -0,0 +1,131 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.application.Platform;
+
+/**
+ * Watches the signage properties file and hands every valid new version of
+ * the configuration to the FX thread.
+ *
+ * The directory of the file is watched (a WatchService can't watch a single
+ * file), events for other files are ignored.  Editors typically write a
+ * file in several steps, so the file is only parsed once it has been quiet
+ * for a short while.  A file that can't be parsed is logged and ignored,
+ * the application keeps running with its current configuration.
+ */
+public final class ConfigurationWatcher {
+
+    private final static Logger LOGGER = Logger.getLogger(ConfigurationWatcher.class.getName());
+
+    private static final long SETTLE_MILLIS = 500;
+
+    private final Path file;
+    private final Consumer<ControlProperties> listener;
+    private WatchService watchService;
+
+    /**
+     * Constructor
+     *
+     * @param propertyFileName The properties file to watch
+     * @param listener Called on the FX thread with the reloaded configuration
+     */
+    public ConfigurationWatcher(final String propertyFileName,
+                                final Consumer<ControlProperties> listener) {
+        this.file = Paths.get(propertyFileName).toAbsolutePath();
+        this.listener = listener;
+    }
+
+    /**
+     * Start watching the file on a daemon thread.
+     */
+    public void start() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            file.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to watch " + file + ", hot reload disabled", e);
+            return;
+        }
+
+        final Thread thread = new Thread(this::watch, "devoxx-config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        LOGGER.log(Level.FINE, "Watching {0} for changes", file);
+    }
+
+    /**
+     * Stop watching the file.
+     */
+    public void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Error closing watch service", e);
+            }
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!isFileChanged(watchService.take())) {
+                    continue;
+                }
+
+                // Wait until the writer is done
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    isFileChanged(key);
+                }
+
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            LOGGER.fine("Stopped watching the properties file");
+        }
+    }
+
+    private boolean isFileChanged(final WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            final Object context = event.context();
+            if (context instanceof Path && file.getFileName().equals(context)) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        LOGGER.log(Level.INFO, "Properties file {0} changed, reloading", file);
+
+        final ControlProperties reloaded;
+        try {
+            reloaded = ControlProperties.reload(file.toString());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Ignoring invalid properties file: {0}", e.getMessage());
+            return;
+        }
+
+        Platform.runLater(() -> listener.accept(reloaded));
+    }
+}
@@ -5,14 +5,22 @@ package devoxx;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 import java.util.logging.Level;
 
 /**
  * The Devoxx control properties.
+ *
+ * An instance is immutable once created: a changed configuration (the test
+ * time keys or a reloaded properties file) results in a new instance.
  * 
  * @author Simon Ritter (@speakjava)
  * @author @stephan007
@@ -21,36 +29,109 @@ public class ControlProperties {
 
     public static final int MODE_REAL = 0;
     public static final int MODE_TEST = 1;
+    public static final int MODE_REPLAY = 2;
 
     private static final String MODE_REAL_NAME = "REAL";
     private static final String MODE_TEST_NAME = "TEST";
+    private static final String MODE_REPLAY_NAME = "REPLAY";
+
+    private static final String MODEL_COMPACT_NAME = "COMPACT";
+    private static final String MODEL_STANDARD_NAME = "STANDARD";
+    private static final String WORKING_DISK_NAME = "DISK";
+    private static final String WORKING_MEMORY_NAME = "MEMORY";
 
     private static final String TESTTIME = "test-time";
     private static final String TESTDAY = "test-day";
     private static final String TESTSCALE = "test-scale";
     private static final String OPERATINGMODE = "operating-mode";
     private static final String IMAGECACHE = "image-cache";
+    private static final String IMAGECACHESIZE = "image-cache-size";
     private static final String DEVOXXSTARTDATE = "devoxx-start-date";
     private static final String DEVOXXDATAHOST = "devoxx-data-host";
     private static final String SCREENREFRESHTIME = "screen-refresh-time";
     private static final String DATAREFRESHTIME = "data-refresh-time";
+    private static final String DATAREFRESHADAPTIVE = "data-refresh-adaptive";
+    private static final String DATAREFRESHBUSYTIME = "data-refresh-busy-time";
+    private static final String DATAREFRESHIDLETIME = "data-refresh-idle-time";
+    private static final String CONFERENCEDAYS = "conference-days";
+    private static final String QUIETHOURS = "quiet-hours";
+    private static final String WORKINGFILES = "working-files";
+    private static final String WORKINGFLUSHTIME = "working-files-flush-time";
+    private static final String QUIETWARMUPTIME = "quiet-warmup-time";
     private static final String LOGGINGLEVEL = "logging-level";
+    private static final String LOGRINGSIZE = "log-ring-size";
     private static final String DEVOXXHOST = "devoxx-host";
+    private static final String FXTHREADCHECK = "fx-thread-check";
+    private static final String MODELMODE = "model-mode";
+    private static final String RENDERAHEADTIME = "render-ahead-time";
+    private static final String FLATTENBACKGROUND = "flatten-background";
+    private static final String SPEAKERTTL = "speaker-ttl";
+    private static final String SPEAKERNEGATIVETTL = "speaker-negative-ttl";
+    private static final String FLIGHTRECORDING = "flight-recording";
+    private static final String FLIGHTRECORDINGMAXAGE = "flight-recording-max-age";
+    private static final String FLIGHTRECORDINGMAXSIZE = "flight-recording-max-size";
+    private static final String REPLAYSPEED = "replay-speed";
+    private static final String REPLAYHEADLESS = "replay-headless";
+    private static final String REPLAYMAXTRANSITION = "replay-max-transition";
+    private static final String REPLAYMAXHEAPGROWTH = "replay-max-heap-growth";
+    private static final String REPLAYMAXIDLEALLOCATION = "replay-max-idle-allocation";
+    private static final String WATCHDOGINTERVAL = "watchdog-interval";
+    private static final String WATCHDOGHEAPBUDGET = "watchdog-heap-budget";
+    private static final String WATCHDOGTHREADBUDGET = "watchdog-thread-budget";
+    private static final String WATCHDOGFILEBUDGET = "watchdog-file-budget";
+    private static final String WATCHDOGNODEBUDGET = "watchdog-node-budget";
+    private static final String WATCHDOGRESTARTGROWTH = "watchdog-restart-growth";
+    private static final String SCREENROOMS = "screen-rooms";
+    private static final String LOBBYROOMS = "lobby-rooms";
 
-    private final Properties properties = new Properties();
+    private final Properties properties;
+    private final String propertyFileName;
+    private final boolean reloading;
 
     /* Configurable properties and their defaults */
     private Level loggingLevel = Level.INFO;
+    private int logRingSize = 1000;
     private int mode = MODE_REAL;
     private int dataRefreshTime = 30;
+    private boolean dataRefreshAdaptive;
+    private int dataRefreshBusyTime = 2;
+    private int dataRefreshIdleTime = 120;
+    private int conferenceDays;
+    private boolean quietHours;
+    private boolean workingFilesInMemory;
+    private int workingFilesFlushTime = 60;
+    private int quietWarmupTime = 30;
     private int screenRefreshTime = 60;
     // private String dataURL = "http://cfp.devoxx.be/api/conferences/DV15/";
     private String dataURL = "http://cfp.devoxx.co.uk/api/conferences/DevoxxUK2016/";
     private String imageCache = "/home/devoxx/speaker-images";
+    private int imageCacheSize = 64;
     private LocalDate startDate;
     private double testScale;
     private int testDay;
     private LocalTime testTime;
+    private boolean fxThreadCheck;
+    private boolean compactModel;
+    private int renderAheadTime = 3;
+    private boolean flattenBackground;
+    private int speakerTTL = 24;
+    private int speakerNegativeTTL = 30;
+    private boolean flightRecording;
+    private int flightRecordingMaxAge = 24;
+    private int flightRecordingMaxSize = 32;
+    private int replaySpeed = 60;
+    private boolean replayHeadless;
+    private int replayMaxTransition = 250;
+    private int replayMaxHeapGrowth = 8;
+    private int replayMaxIdleAllocation = 0;
+    private int watchdogInterval = 5;
+    private int watchdogHeapBudget = 160;
+    private int watchdogThreadBudget = 40;
+    private int watchdogFileBudget = 200;
+    private int watchdogNodeBudget = 2000;
+    private int watchdogRestartGrowth = 64;
+    private List<String> screenRooms = Collections.emptyList();
+    private List<String> lobbyRooms = Collections.emptyList();
 
     /**
      * Constructor
@@ -58,6 +139,13 @@ public class ControlProperties {
      * @param propertyFileName The file to load the properties from
      */
     public ControlProperties(final String propertyFileName) {
+        this(propertyFileName, false);
+    }
+
+    private ControlProperties(final String propertyFileName, final boolean reloading) {
+        this.propertyFileName = propertyFileName;
+        this.reloading = reloading;
+        this.properties = new Properties();
         
         loadProperties(propertyFileName);
 
@@ -66,17 +154,113 @@ public class ControlProperties {
         printProperties();
     }
 
+    /**
+     * Read the properties file again, e.g. after it was changed.  Unlike
+     * the constructor this does not exit the application when the file is
+     * invalid, the caller keeps using its current configuration instead.
+     *
+     * @param propertyFileName The file to load the properties from
+     * @return The new configuration
+     * @throws RuntimeException when the file cannot be read or is invalid
+     */
+    public static ControlProperties reload(final String propertyFileName) {
+        return new ControlProperties(propertyFileName, true);
+    }
+
+    /**
+     * Copy constructor, used to derive a changed configuration
+     */
+    private ControlProperties(final ControlProperties other) {
+        properties = other.properties;
+        propertyFileName = other.propertyFileName;
+        reloading = other.reloading;
+        loggingLevel = other.loggingLevel;
+        logRingSize = other.logRingSize;
+        mode = other.mode;
+        dataRefreshTime = other.dataRefreshTime;
+        dataRefreshAdaptive = other.dataRefreshAdaptive;
+        dataRefreshBusyTime = other.dataRefreshBusyTime;
+        dataRefreshIdleTime = other.dataRefreshIdleTime;
+        conferenceDays = other.conferenceDays;
+        quietHours = other.quietHours;
+        workingFilesInMemory = other.workingFilesInMemory;
+        workingFilesFlushTime = other.workingFilesFlushTime;
+        quietWarmupTime = other.quietWarmupTime;
+        screenRefreshTime = other.screenRefreshTime;
+        dataURL = other.dataURL;
+        imageCache = other.imageCache;
+        imageCacheSize = other.imageCacheSize;
+        startDate = other.startDate;
+        testScale = other.testScale;
+        testDay = other.testDay;
+        testTime = other.testTime;
+        fxThreadCheck = other.fxThreadCheck;
+        compactModel = other.compactModel;
+        renderAheadTime = other.renderAheadTime;
+        flattenBackground = other.flattenBackground;
+        speakerTTL = other.speakerTTL;
+        speakerNegativeTTL = other.speakerNegativeTTL;
+        flightRecording = other.flightRecording;
+        flightRecordingMaxAge = other.flightRecordingMaxAge;
+        flightRecordingMaxSize = other.flightRecordingMaxSize;
+        replaySpeed = other.replaySpeed;
+        replayHeadless = other.replayHeadless;
+        replayMaxTransition = other.replayMaxTransition;
+        replayMaxHeapGrowth = other.replayMaxHeapGrowth;
+        replayMaxIdleAllocation = other.replayMaxIdleAllocation;
+        watchdogInterval = other.watchdogInterval;
+        watchdogHeapBudget = other.watchdogHeapBudget;
+        watchdogThreadBudget = other.watchdogThreadBudget;
+        watchdogFileBudget = other.watchdogFileBudget;
+        watchdogNodeBudget = other.watchdogNodeBudget;
+        watchdogRestartGrowth = other.watchdogRestartGrowth;
+        screenRooms = other.screenRooms;
+        lobbyRooms = other.lobbyRooms;
+    }
+
     private void setProperties() throws NumberFormatException {
         setDataURL();
         setLoggingLevel();
+        setLogRingSize();
         setDataRefreshTime();
+        setDataRefreshAdaptive();
+        setDataRefreshBusyTime();
+        setDataRefreshIdleTime();
         setScreenRefreshTime();
         setStartDate();
+        setConferenceDays();
+        setQuietHours();
+        setWorkingFiles();
+        setWorkingFilesFlushTime();
+        setQuietWarmupTime();
         setImageCache();
+        setImageCacheSize();
         setRunMode();
         setTestScale();
         setTestDay();
         setTestTime();
+        setFxThreadCheck();
+        setSpeakerTTL();
+        setSpeakerNegativeTTL();
+        setModelMode();
+        setRenderAheadTime();
+        setFlattenBackground();
+        setFlightRecording();
+        setFlightRecordingMaxAge();
+        setFlightRecordingMaxSize();
+        setReplaySpeed();
+        setReplayHeadless();
+        setReplayMaxTransition();
+        setReplayMaxHeapGrowth();
+        setReplayMaxIdleAllocation();
+        setWatchdogInterval();
+        setWatchdogHeapBudget();
+        setWatchdogThreadBudget();
+        setWatchdogFileBudget();
+        setWatchdogNodeBudget();
+        setWatchdogRestartGrowth();
+        setScreenRooms();
+        setLobbyRooms();
     }
 
     private void loadProperties(final String propertyFileName) {
@@ -84,7 +268,9 @@ public class ControlProperties {
         try {
             if (propertyFileName != null) {
                 System.out.println("Loading parameters from FILE : " + propertyFileName);
-                properties.load(new FileInputStream(propertyFileName));
+                try (InputStream in = new FileInputStream(propertyFileName)) {
+                    properties.load(in);
+                }
             } else {
                 // Load the properties using the file in the jar file
                 System.out.println("Loading parameters from RESOURCES : resources/signage.properties");
@@ -93,6 +279,9 @@ public class ControlProperties {
         } catch (IOException ex) {
             System.err.println("ControlProperties: Error reading properties file");
             System.err.println(ex.getMessage());
+            if (reloading) {
+                throw new UncheckedIOException(ex);
+            }
             System.exit(2);
         }
     }
@@ -102,11 +291,43 @@ public class ControlProperties {
             System.out.println("\nSYSTEM CONFIGURATION");
             System.out.println("====================");
             System.out.println("logging-level       = " + loggingLevel.toString());
+            System.out.println("log-ring-size       = " + logRingSize);
             System.out.println("data-refresh-time   = " + dataRefreshTime);
+            System.out.println("data-refresh-adapt  = " + dataRefreshAdaptive);
+            if (dataRefreshAdaptive) {
+                System.out.println("data-refresh-busy   = " + dataRefreshBusyTime);
+                System.out.println("data-refresh-idle   = " + dataRefreshIdleTime);
+            }
+            System.out.println("conference-days     = " + conferenceDays);
+            System.out.println("quiet-hours         = " + quietHours);
+            if (quietHours) {
+                System.out.println("quiet-warmup-time   = " + quietWarmupTime);
+            }
             System.out.println("screen-refresh-time = " + screenRefreshTime);
             System.out.println("devoxx-host         = " + dataURL);
             System.out.println("image-cache         = " + imageCache);
-            System.out.println("mode                = " + (mode == MODE_TEST ? "TEST" : "REAL"));
+            System.out.println("image-cache-size    = " + imageCacheSize);
+            System.out.println("mode                = " + getModeName());
+            System.out.println("fx-thread-check     = " + fxThreadCheck);
+            System.out.println("render-ahead-time   = " + renderAheadTime);
+            System.out.println("flatten-background  = " + flattenBackground);
+            System.out.println("model-mode          = " + (compactModel ? MODEL_COMPACT_NAME : MODEL_STANDARD_NAME));
+            System.out.println("working-files       = " + (workingFilesInMemory ? WORKING_MEMORY_NAME : WORKING_DISK_NAME));
+            if (workingFilesInMemory) {
+                System.out.println("working-files-flush = " + workingFilesFlushTime);
+            }
+            System.out.println("speaker-ttl         = " + speakerTTL);
+            System.out.println("speaker-neg-ttl     = " + speakerNegativeTTL);
+            System.out.println("watchdog-interval   = " + watchdogInterval);
+            System.out.println("flight-recording    = " + flightRecording);
+
+            if (!screenRooms.isEmpty()) {
+                System.out.println("screen-rooms        = " + screenRooms);
+            }
+
+            if (!lobbyRooms.isEmpty()) {
+                System.out.println("lobby-rooms         = " + lobbyRooms);
+            }
 
             if (mode == MODE_TEST) {
                 System.out.println("test-scale          = " + testScale);
@@ -114,10 +335,25 @@ public class ControlProperties {
                 System.out.println("test-time           = " + testTime);
             }
 
+            if (mode == MODE_REPLAY) {
+                System.out.println("replay-speed        = " + replaySpeed);
+                System.out.println("replay-headless     = " + replayHeadless);
+                System.out.println("replay-max-trans    = " + replayMaxTransition);
+                System.out.println("replay-max-heap     = " + replayMaxHeapGrowth);
+                System.out.println("replay-max-idle     = " + replayMaxIdleAllocation);
+            }
+
             System.out.println();
         }
     }
 
+    /**
+     * Debug mode: flag blocking I/O made on the JavaFX application thread
+     */
+    private void setFxThreadCheck() {
+        fxThreadCheck = processBooleanProperty(FXTHREADCHECK);
+    }
+
     private void setTestTime() {
         String value = properties.getProperty(TESTTIME);
         testTime = LocalTime.parse(value, DateTimeFormatter.ISO_LOCAL_TIME);
@@ -133,12 +369,15 @@ public class ControlProperties {
         testScale = Double.parseDouble(value);
     }
     
-    public void toggleRunMode() {
-        if (isTestMode()) {
-            mode = MODE_REAL;
-        } else {
-            mode = MODE_TEST;
-        }
+    /**
+     * Switch between test and real mode
+     *
+     * @return The configuration in the other mode
+     */
+    public ControlProperties toggleRunMode() {
+        final ControlProperties toggled = new ControlProperties(this);
+        toggled.mode = isTestMode() ? MODE_REAL : MODE_TEST;
+        return toggled;
     }
 
     private String setRunMode() {
@@ -155,6 +394,10 @@ public class ControlProperties {
                     mode = MODE_TEST;
                     modeName = "TEST";
                     break;
+                case MODE_REPLAY_NAME:
+                    mode = MODE_REPLAY;
+                    modeName = "REPLAY";
+                    break;
                 default:
                     System.out.println("ControlProperties: Unrecognized mode: " + value);
                     break;
@@ -163,6 +406,130 @@ public class ControlProperties {
         return modeName;
     }
 
+    /**
+     * Allocation budget of a display update without a session change
+     * during a replay (in bytes)
+     */
+    private void setReplayMaxIdleAllocation() {
+        replayMaxIdleAllocation = processIntProperty(REPLAYMAXIDLEALLOCATION, replayMaxIdleAllocation);
+    }
+
+    private String getModeName() {
+        switch (mode) {
+            case MODE_TEST:
+                return MODE_TEST_NAME;
+            case MODE_REPLAY:
+                return MODE_REPLAY_NAME;
+            default:
+                return MODE_REAL_NAME;
+        }
+    }
+
+    /**
+     * Keep a rolling JDK Flight Recorder recording
+     */
+    private void setFlightRecording() {
+        flightRecording = processBooleanProperty(FLIGHTRECORDING);
+    }
+
+    /**
+     * How long the flight recording keeps its data (in hours)
+     */
+    private void setFlightRecordingMaxAge() {
+        flightRecordingMaxAge = processIntProperty(FLIGHTRECORDINGMAXAGE, flightRecordingMaxAge);
+    }
+
+    /**
+     * How much data the flight recording keeps (in MB)
+     */
+    private void setFlightRecordingMaxSize() {
+        flightRecordingMaxSize = processIntProperty(FLIGHTRECORDINGMAXSIZE, flightRecordingMaxSize);
+    }
+
+    /**
+     * Replay speed (in simulated minutes per second)
+     */
+    private void setReplaySpeed() {
+        replaySpeed = Math.max(1, processIntProperty(REPLAYSPEED, replaySpeed));
+    }
+
+    /**
+     * Replay without showing the stage
+     */
+    private void setReplayHeadless() {
+        replayHeadless = processBooleanProperty(REPLAYHEADLESS);
+    }
+
+    /**
+     * Longest acceptable screen transition during a replay (in milliseconds)
+     */
+    private void setReplayMaxTransition() {
+        replayMaxTransition = processIntProperty(REPLAYMAXTRANSITION, replayMaxTransition);
+    }
+
+    /**
+     * Largest acceptable heap growth during a replay (in MB)
+     */
+    private void setReplayMaxHeapGrowth() {
+        replayMaxHeapGrowth = processIntProperty(REPLAYMAXHEAPGROWTH, replayMaxHeapGrowth);
+    }
+
+    /**
+     * How often the resource watchdog samples (in minutes)
+     */
+    private void setWatchdogInterval() {
+        watchdogInterval = processIntProperty(WATCHDOGINTERVAL, watchdogInterval);
+    }
+
+    /**
+     * Heap budget of the resource watchdog (in MB)
+     */
+    private void setWatchdogHeapBudget() {
+        watchdogHeapBudget = processIntProperty(WATCHDOGHEAPBUDGET, watchdogHeapBudget);
+    }
+
+    /**
+     * Thread budget of the resource watchdog
+     */
+    private void setWatchdogThreadBudget() {
+        watchdogThreadBudget = processIntProperty(WATCHDOGTHREADBUDGET, watchdogThreadBudget);
+    }
+
+    /**
+     * Open file budget of the resource watchdog
+     */
+    private void setWatchdogFileBudget() {
+        watchdogFileBudget = processIntProperty(WATCHDOGFILEBUDGET, watchdogFileBudget);
+    }
+
+    /**
+     * Scene node budget of the resource watchdog
+     */
+    private void setWatchdogNodeBudget() {
+        watchdogNodeBudget = processIntProperty(WATCHDOGNODEBUDGET, watchdogNodeBudget);
+    }
+
+    /**
+     * Memory growth after which the application restarts itself (in MB)
+     */
+    private void setWatchdogRestartGrowth() {
+        watchdogRestartGrowth = processIntProperty(WATCHDOGRESTARTGROWTH, watchdogRestartGrowth);
+    }
+
+    /**
+     * The rooms shown on the second and further screens
+     */
+    private void setScreenRooms() {
+        screenRooms = processRoomListProperty(SCREENROOMS);
+    }
+
+    /**
+     * The rooms shown on the lobby screen
+     */
+    private void setLobbyRooms() {
+        lobbyRooms = processRoomListProperty(LOBBYROOMS);
+    }
+
     private void setImageCache() {
         /* Where to store the speaker images for caching */
         String value = properties.getProperty(IMAGECACHE);
@@ -174,6 +541,13 @@ public class ControlProperties {
         }
     }
 
+    /**
+     * Maximum size of the speaker photo cache (in MB)
+     */
+    private void setImageCacheSize() {
+        imageCacheSize = processIntProperty(IMAGECACHESIZE, imageCacheSize);
+    }
+
     private void setStartDate() {
 
         String value = properties.getProperty(DEVOXXSTARTDATE);
@@ -183,6 +557,9 @@ public class ControlProperties {
          */
         if (value == null) {
             System.err.println("ERROR: No start date found in config file");
+            if (reloading) {
+                throw new IllegalArgumentException("No start date found in config file");
+            }
             System.exit(3);
         }
 
@@ -220,6 +597,136 @@ public class ControlProperties {
         }
     }
 
+    /**
+     * How many recent log records are kept in memory
+     */
+    private void setLogRingSize() {
+        logRingSize = processIntProperty(LOGRINGSIZE, logRingSize);
+    }
+
+    /**
+     * Adapt the data refresh interval to the sessions of the conference
+     */
+    private void setDataRefreshAdaptive() {
+        dataRefreshAdaptive = processBooleanProperty(DATAREFRESHADAPTIVE);
+    }
+
+    /**
+     * How often the session data is refreshed just before a session
+     * boundary (measured in minutes)
+     */
+    private void setDataRefreshBusyTime() {
+        dataRefreshBusyTime = processIntProperty(DATAREFRESHBUSYTIME, dataRefreshBusyTime);
+    }
+
+    /**
+     * How often the session data is refreshed overnight and outside the
+     * conference (measured in minutes)
+     */
+    private void setDataRefreshIdleTime() {
+        dataRefreshIdleTime = processIntProperty(DATAREFRESHIDLETIME, dataRefreshIdleTime);
+    }
+
+    /**
+     * How many days the conference lasts, from the start date
+     */
+    private void setConferenceDays() {
+        conferenceDays = processIntProperty(CONFERENCEDAYS, conferenceDays);
+    }
+
+    /**
+     * Show a static screen and stop the timelines outside the sessions
+     */
+    private void setQuietHours() {
+        quietHours = processBooleanProperty(QUIETHOURS);
+    }
+
+    /**
+     * How long before the first session of a day the screens are woken up
+     * (in minutes)
+     */
+    private void setQuietWarmupTime() {
+        quietWarmupTime = processIntProperty(QUIETWARMUPTIME, quietWarmupTime);
+    }
+
+    /**
+     * Rasterise the static part of the scene into a single image layer
+     */
+    private void setFlattenBackground() {
+        flattenBackground = processBooleanProperty(FLATTENBACKGROUND);
+    }
+
+    /**
+     * How long before a session boundary the next screen is prepared (in minutes)
+     */
+    private void setRenderAheadTime() {
+        renderAheadTime = processIntProperty(RENDERAHEADTIME, renderAheadTime);
+    }
+
+    /**
+     * How the schedule is kept in memory: STANDARD or COMPACT
+     */
+    private void setModelMode() {
+        String value = properties.getProperty(MODELMODE);
+
+        if (value != null) {
+            switch (value.trim()) {
+                case MODEL_COMPACT_NAME:
+                    compactModel = true;
+                    break;
+                case MODEL_STANDARD_NAME:
+                    compactModel = false;
+                    break;
+                default:
+                    System.out.println("ControlProperties: Unrecognized model mode: " + value);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Where the downloaded schedule files are kept: DISK or MEMORY
+     */
+    private void setWorkingFiles() {
+        String value = properties.getProperty(WORKINGFILES);
+
+        if (value != null) {
+            switch (value.trim()) {
+                case WORKING_MEMORY_NAME:
+                    workingFilesInMemory = true;
+                    break;
+                case WORKING_DISK_NAME:
+                    workingFilesInMemory = false;
+                    break;
+                default:
+                    System.out.println("ControlProperties: Unrecognized working files mode: " + value);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * How often changed working files kept in memory are written to disk
+     * (in minutes)
+     */
+    private void setWorkingFilesFlushTime() {
+        workingFilesFlushTime = processIntProperty(WORKINGFLUSHTIME, workingFilesFlushTime);
+    }
+
+    /**
+     * How long a downloaded speaker is kept in the speaker store (in hours)
+     */
+    private void setSpeakerTTL() {
+        speakerTTL = processIntProperty(SPEAKERTTL, speakerTTL);
+    }
+
+    /**
+     * How long a failed speaker lookup is remembered (in minutes)
+     */
+    private void setSpeakerNegativeTTL() {
+        speakerNegativeTTL = processIntProperty(SPEAKERNEGATIVETTL, speakerNegativeTTL);
+    }
+
     /**
      * What level of debug messages to log 
      */
@@ -266,6 +773,50 @@ public class ControlProperties {
         }
     }
 
+    /**
+     * Convert a property with comma separated room IDs into a list
+     *
+     * @param key The key for the property
+     * @return The room IDs, trimmed and lower case, empty when unset
+     */
+    private List<String> processRoomListProperty(String key) {
+        String value = properties.getProperty(key);
+
+        if (value == null) {
+            return Collections.emptyList();
+        }
+
+        final List<String> rooms = new ArrayList<>();
+        for (String room : value.split(",")) {
+            if (!room.trim().isEmpty()) {
+                rooms.add(room.trim().toLowerCase());
+            }
+        }
+        return Collections.unmodifiableList(rooms);
+    }
+
+    /**
+     * Convert a property that represents a number into an int
+     *
+     * @param key The key for the property
+     * @param defaultValue The value when the property is not set or not a
+     * number
+     * @return The number
+     */
+    private int processIntProperty(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException nfe) {
+                System.out.println("ControlProperties: " + key + " is not a number");
+            }
+        }
+
+        return defaultValue;
+    }
+
     /**
      * Convert a property that represents a boolean into an actual boolean
      *
@@ -293,6 +844,16 @@ public class ControlProperties {
         return loggingLevel;
     }
 
+    /**
+     * Get how many recent log records are kept in memory, to be dumped on
+     * demand
+     *
+     * @return The number of records
+     */
+    public int getLogRingSize() {
+        return logRingSize;
+    }
+
     /**
      * Get how long we want to wait between data refreshes
      *
@@ -302,6 +863,62 @@ public class ControlProperties {
         return dataRefreshTime;
     }
 
+    /**
+     * Is the data refresh interval adapted to the sessions of the conference
+     *
+     * @return True to refresh more often before a session boundary and
+     * less often overnight and outside the conference
+     */
+    public boolean isDataRefreshAdaptive() {
+        return dataRefreshAdaptive;
+    }
+
+    /**
+     * Get the data refresh interval just before a session boundary
+     *
+     * @return Time (in minutes)
+     */
+    public int getDataRefreshBusyTime() {
+        return dataRefreshBusyTime;
+    }
+
+    /**
+     * Get the data refresh interval overnight and outside the conference
+     *
+     * @return Time (in minutes)
+     */
+    public int getDataRefreshIdleTime() {
+        return dataRefreshIdleTime;
+    }
+
+    /**
+     * Get the number of days the conference lasts, from the start date
+     *
+     * @return The number of days, 0 when not known
+     */
+    public int getConferenceDays() {
+        return conferenceDays;
+    }
+
+    /**
+     * Are the screens quiet outside the sessions
+     *
+     * @return True to show a static screen, stop the timelines and release
+     * the photos overnight
+     */
+    public boolean isQuietHours() {
+        return quietHours;
+    }
+
+    /**
+     * Get how long before the first session of a day the screens wake up
+     *
+     * @return Time (in minutes)
+     */
+    public int getQuietWarmupTime() {
+        return quietWarmupTime;
+    }
+
     /**
      * Get how long we want to wait between updates to the screen display
      *
@@ -346,6 +963,15 @@ public class ControlProperties {
         return imageCache;
     }
 
+    /**
+     * Get the maximum size of the speaker photo cache
+     *
+     * @return The size cap (in MB) of the photo cache
+     */
+    public int getImageCacheSize() {
+        return imageCacheSize;
+    }
+
     /**
      * Are we in test or real mode
      *
@@ -355,6 +981,163 @@ public class ControlProperties {
         return mode == MODE_TEST;
     }
 
+    /**
+     * Should a rolling flight recording be kept on the device
+     *
+     * @return True to start the recording
+     */
+    public boolean isFlightRecording() {
+        return flightRecording;
+    }
+
+    /**
+     * Get how long the flight recording keeps its data
+     *
+     * @return Time (in hours)
+     */
+    public int getFlightRecordingMaxAge() {
+        return flightRecordingMaxAge;
+    }
+
+    /**
+     * Get how much data the flight recording keeps
+     *
+     * @return Size (in MB)
+     */
+    public int getFlightRecordingMaxSize() {
+        return flightRecordingMaxSize;
+    }
+
+    /**
+     * Are we replaying the conference at accelerated speed
+     *
+     * @return True for replay mode
+     */
+    public boolean isReplayMode() {
+        return mode == MODE_REPLAY;
+    }
+
+    /**
+     * Get the replay speed
+     *
+     * @return Simulated minutes per second
+     */
+    public int getReplaySpeed() {
+        return replaySpeed;
+    }
+
+    /**
+     * Should the replay run without showing the stage
+     *
+     * @return True for a headless replay
+     */
+    public boolean isReplayHeadless() {
+        return replayHeadless;
+    }
+
+    /**
+     * Get the longest acceptable screen transition during a replay
+     *
+     * @return Time (in milliseconds)
+     */
+    public int getReplayMaxTransition() {
+        return replayMaxTransition;
+    }
+
+    /**
+     * Get the largest acceptable heap growth during a replay
+     *
+     * @return Size (in MB)
+     */
+    public int getReplayMaxHeapGrowth() {
+        return replayMaxHeapGrowth;
+    }
+
+    /**
+     * Get how often the resource watchdog samples
+     *
+     * @return Time (in minutes), 0 disables the watchdog
+     */
+    public int getWatchdogInterval() {
+        return watchdogInterval;
+    }
+
+    /**
+     * Get the heap budget, measured after garbage collection
+     *
+     * @return Size (in MB)
+     */
+    public int getWatchdogHeapBudget() {
+        return watchdogHeapBudget;
+    }
+
+    /**
+     * Get the thread budget
+     *
+     * @return Number of live threads
+     */
+    public int getWatchdogThreadBudget() {
+        return watchdogThreadBudget;
+    }
+
+    /**
+     * Get the open file handle budget
+     *
+     * @return Number of open file descriptors
+     */
+    public int getWatchdogFileBudget() {
+        return watchdogFileBudget;
+    }
+
+    /**
+     * Get the scene graph node budget
+     *
+     * @return Number of nodes in the scene
+     */
+    public int getWatchdogNodeBudget() {
+        return watchdogNodeBudget;
+    }
+
+    /**
+     * Get the memory growth after which the application restarts itself
+     *
+     * @return Size (in MB) of heap plus non-heap growth, 0 never restarts
+     */
+    public int getWatchdogRestartGrowth() {
+        return watchdogRestartGrowth;
+    }
+
+    /**
+     * Get the rooms for the screens after the first one, in the order the
+     * screens are attached.  The first screen shows the room given on the
+     * command line.
+     *
+     * @return The room IDs, empty for a single screen
+     */
+    public List<String> getScreenRooms() {
+        return screenRooms;
+    }
+
+    /**
+     * Get the rooms shown on the lobby screen, from top to bottom, which
+     * are also the rooms searched on the search kiosk
+     *
+     * @return The room IDs
+     */
+    public List<String> getLobbyRooms() {
+        return lobbyRooms;
+    }
+
+    /**
+     * Get the allocation budget of a display update without a session
+     * change during a replay
+     *
+     * @return Size (in bytes)
+     */
+    public int getReplayMaxIdleAllocation() {
+        return replayMaxIdleAllocation;
+    }
+
     /**
      * Get the scaling factor to use when testing
      *
@@ -382,17 +1165,130 @@ public class ControlProperties {
         return testTime;
     }
 
-    public void incrementTestTime(int minutes) {
-        testTime = getTestTime().plusMinutes(minutes);
-        if (getTestTime().isBefore(LocalTime.of(0, minutes))) {
-            testDay++;
+    /**
+     * Should blocking calls on the FX application thread be flagged
+     *
+     * @return True when the debug check is enabled
+     */
+    public boolean isFxThreadCheck() {
+        return fxThreadCheck;
+    }
+
+    /**
+     * Should the static background be flattened into a single image
+     *
+     * @return True to use a single cached background image
+     */
+    public boolean isFlattenBackground() {
+        return flattenBackground;
+    }
+
+    /**
+     * Get how long before a session boundary the next screen is prepared
+     *
+     * @return Time (in minutes), 0 disables render-ahead
+     */
+    public int getRenderAheadTime() {
+        return renderAheadTime;
+    }
+
+    /**
+     * Use the memory lean model representation
+     *
+     * @return True for compact model mode
+     */
+    public boolean isCompactModel() {
+        return compactModel;
+    }
+
+    /**
+     * Are the downloaded schedule files kept in memory
+     *
+     * @return True when they are kept in memory and only written to disk
+     * now and then, when they changed
+     */
+    public boolean isWorkingFilesInMemory() {
+        return workingFilesInMemory;
+    }
+
+    /**
+     * Get how often changed working files kept in memory are written to disk
+     *
+     * @return Time (in minutes)
+     */
+    public int getWorkingFilesFlushTime() {
+        return workingFilesFlushTime;
+    }
+
+    /**
+     * Get how long a downloaded speaker is kept in the speaker store
+     *
+     * @return Time (in hours) a speaker stays valid
+     */
+    public int getSpeakerTTL() {
+        return speakerTTL;
+    }
+
+    /**
+     * Get how long a failed speaker lookup is remembered
+     *
+     * @return Time (in minutes) before a failed lookup is retried
+     */
+    public int getSpeakerNegativeTTL() {
+        return speakerNegativeTTL;
+    }
+
+    /**
+     * Get the file the properties were loaded from
+     *
+     * @return The properties file or null when loaded from the jar file
+     */
+    public String getPropertyFileName() {
+        return propertyFileName;
+    }
+
+    /**
+     * Take over the run mode and test time from another configuration, used
+     * to keep the test time set with the keyboard over a reload.
+     *
+     * @param other The configuration to take the test clock from
+     * @return The configuration with the test clock of the other one
+     */
+    public ControlProperties withTestClock(final ControlProperties other) {
+        final ControlProperties copy = new ControlProperties(this);
+        copy.mode = other.mode;
+        copy.testDay = other.testDay;
+        copy.testTime = other.testTime;
+        return copy;
+    }
+
+    /**
+     * Move the test time forward
+     *
+     * @param minutes The number of minutes to move
+     * @return The configuration with the new test time
+     */
+    public ControlProperties incrementTestTime(int minutes) {
+        final ControlProperties moved = new ControlProperties(this);
+        moved.testTime = getTestTime().plusMinutes(minutes);
+        if (moved.testTime.isBefore(LocalTime.of(0, minutes))) {
+            moved.testDay++;
         }
+        return moved;
     }
 
-    public void decrementTestTime(int minutes) {
+    /**
+     * Move the test time back
+     *
+     * @param minutes The number of minutes to move
+     * @return The configuration with the new test time
+     */
+    public ControlProperties decrementTestTime(int minutes) {
+        final ControlProperties moved = new ControlProperties(this);
         if (getTestTime().isBefore(LocalTime.of(0, minutes))) {
-            testDay--;
+            moved.testDay--;
         }
-        testTime = getTestTime().minusMinutes(minutes);
+        moved.testTime = getTestTime().minusMinutes(minutes);
+        return moved;
     }
 }
@@ -5,8 +5,11 @@ package devoxx;
 
 import devoxx.model.Speaker;
 import devoxx.model.Presentation;
+import devoxx.model.ScheduleSnapshot;
+import devoxx.model.SlotInternTable;
 import devoxx.json.PresentationDeserializer;
-import devoxx.json.SpeakerDeserializer;
+import devoxx.jfr.DayParseEvent;
+import devoxx.jfr.Flight;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
@@ -14,18 +17,18 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
+import java.io.StringReader;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -39,19 +42,19 @@ public class DataFetcher {
 
     private final static Logger LOGGER = Logger.getLogger(DataFetcher.class.getName());
     
-    // JSON file names
-    private static final String SPEAKERS_JSON = "speakers.json";
-
     private static final String[] DAYS = {"monday", "tuesday", "wednesday", "thursday", "friday"};
 
-    private final Map<String, Speaker> speakerMap = new HashMap<>();
-    private final Map<String, Presentation> presentationMap = new HashMap<>();
-    private final List<Presentation> presentations = new ArrayList<>();
+    private final AtomicReference<ScheduleSnapshot> snapshot =
+        new AtomicReference<>(ScheduleSnapshot.EMPTY);
+    private final AtomicLong version = new AtomicLong();
     
-    private String roomId;
+    private volatile String roomId;
     private final String devoxxHost;
     private final LocalDate startDate;
-    private final String imageCache;
+    private final List<String> days;
+    private final SpeakerStore speakerStore;
+    private final boolean compactModel;
+    private final SlotInternTable slotTable = new SlotInternTable();
 
     /**
      * Constructor
@@ -61,48 +64,138 @@ public class DataFetcher {
      */
     public DataFetcher(final ControlProperties controlProperties,
                        final String roomId) {
+        this(controlProperties, roomId, new SpeakerStore(controlProperties));
+    }
+
+    /**
+     * Constructor for one of several rooms shown by the same application,
+     * which share the speaker store so a speaker and its photo are only
+     * retrieved and decoded once.
+     *
+     * @param controlProperties control properties
+     * @param roomId Which room to get data for
+     * @param speakerStore The speaker store to resolve the speakers with
+     */
+    public DataFetcher(final ControlProperties controlProperties,
+                       final String roomId,
+                       final SpeakerStore speakerStore) {
         this.roomId = roomId;
         devoxxHost = controlProperties.getDevoxxHost();
-        imageCache = controlProperties.getImageCache();
+        this.speakerStore = speakerStore;
+        compactModel = controlProperties.isCompactModel();
         startDate = controlProperties.getStartDate();
+        days = conferenceDays(startDate, controlProperties.getConferenceDays());
+    }
+
+    /**
+     * Get the days the schedule is published for that fall within the
+     * conference, so no requests are made for the days without sessions.
+     *
+     * @param startDate The first day of the conference
+     * @param conferenceDays The number of days, 0 when not known
+     * @return The names of the days to retrieve, all weekdays when not known
+     */
+    private static List<String> conferenceDays(final LocalDate startDate, final int conferenceDays) {
+        final List<String> conference = new ArrayList<>();
+        for (String day : DAYS) {
+            for (int i = 0; i < conferenceDays && i < 7; i++) {
+                if (startDate.plusDays(i).getDayOfWeek().name().equalsIgnoreCase(day)) {
+                    conference.add(day);
+                }
+            }
+        }
+
+        if (conference.isEmpty()) {
+            return Arrays.asList(DAYS);
+        }
+        LOGGER.log(Level.FINE, "Retrieving the schedule of {0}", conference);
+        return conference;
     }
     
     public void setRoomId(final String roomId) {
         this.roomId = roomId;
     }
+
+    public String getRoomId() {
+        return roomId;
+    }
     
+    /**
+     * Publish an empty schedule, e.g. when switching to another room.
+     */
     public void clearAll() {
-        speakerMap.clear();
-        presentationMap.clear();
-        presentations.clear();
+        publish(null, Collections.<Presentation>emptyList(),
+                Collections.<String, Speaker>emptyMap());
+    }
+
+    /**
+     * Get the latest published schedule for the chosen room.  The snapshot
+     * is immutable so it can be read from any thread without locking.
+     *
+     * @return the current schedule snapshot
+     */
+    public ScheduleSnapshot getSnapshot() {
+        return snapshot.get();
     }
 
     /**
      * Get the list of presentations for the chosen room
      *
-     * @return
+     * @return the (unmodifiable) presentations sorted by start time
      */
     public List<Presentation> getPresentationList() {
-        return presentations;
+        return snapshot.get().presentations;
+    }
+
+    private void publish(final String publishedRoomId,
+                         final List<Presentation> presentations,
+                         final Map<String, Speaker> speakerMap) {
+        final ScheduleSnapshot next = new ScheduleSnapshot(version.incrementAndGet(),
+                publishedRoomId, presentations, speakerMap);
+        snapshot.set(next);
+        LOGGER.log(Level.FINE, "Published {0}", next);
+
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(ModelFootprint.report(next, compactModel));
+        }
     }
 
     /**
      * Try to update the data from the Devoxx CFP web service.
      *
-     * @return Whether the update succeeded or failed
+     * @return Whether the update succeeded or failed, also false when the
+     * room was changed during the update and its data was discarded
      */
     public boolean updateData() {
-        LOGGER.log(Level.FINE, "Retrieving data for room {0}", roomId);
+        final String updateRoomId = roomId;
+        LOGGER.log(Level.FINE, "Retrieving data for room {0}", updateRoomId);
+
+        final Map<String, Presentation> presentationMap = new HashMap<>();
 
-        if (!retrieveSpeakerDetails()) {
+        final boolean retrieved = retrieveScheduleDetails(updateRoomId, presentationMap);
+
+        // Persist the speakers and photos resolved so far, even when the schedule is incomplete
+        speakerStore.save();
+        PhotoCache.saveAll();
+
+        if (!retrieved) {
             return false;
         }
 
-        if (!retrieveScheduleDetails()) {
+        // The room was changed while we were downloading, drop this data.
+        // Still close the generation, the update of the new room drops the
+        // slots of this one.
+        if (!updateRoomId.equals(roomId)) {
+            LOGGER.log(Level.FINE, "Room changed to {0}, discarding data", roomId);
+            slotTable.endUpdate();
             return false;
         }
 
-        sortPresentations();
+        publish(updateRoomId, sortPresentations(presentationMap), roomSpeakers(presentationMap));
+
+        slotTable.endUpdate();
+        LOGGER.log(Level.FINE, "Slots reused {0} times, {1} presentations created",
+                new Object[]{slotTable.getReused(), slotTable.getCreated()});
 
         return true;
     }
@@ -111,10 +204,23 @@ public class DataFetcher {
      * Sort the presentation by time.  I'm not sure this is really
      * necessary given the size of the data set (SR)
      */
-    private void sortPresentations() {
-        presentations.clear();
-        presentations.addAll(presentationMap.values());
-        Collections.sort(presentations, (s1, s2) -> s1.fromTime.compareTo(s2.fromTime));
+    private List<Presentation> sortPresentations(final Map<String, Presentation> presentationMap) {
+        final List<Presentation> presentations = new ArrayList<>(presentationMap.values());
+        Collections.sort(presentations, (s1, s2) -> Long.compare(s1.fromEpochSecond, s2.fromEpochSecond));
+        return presentations;
+    }
+
+    /**
+     * Collect the speakers of the room, only these are resolved and stored.
+     */
+    private Map<String, Speaker> roomSpeakers(final Map<String, Presentation> presentationMap) {
+        final Map<String, Speaker> speakerMap = new HashMap<>();
+        for (Presentation presentation : presentationMap.values()) {
+            for (Speaker speaker : presentation.speakers) {
+                speakerMap.put(speaker.uuid, speaker);
+            }
+        }
+        return speakerMap;
     }
 
     /**
@@ -122,22 +228,24 @@ public class DataFetcher {
      *
      * @return true when successful
      */
-    private boolean retrieveScheduleDetails() {
+    private boolean retrieveScheduleDetails(final String updateRoomId,
+                                            final Map<String, Presentation> presentationMap) {
 
         final GsonBuilder presoJSONBuilder = new GsonBuilder();        
-        presoJSONBuilder.registerTypeAdapter(Presentation.class, new PresentationDeserializer(speakerMap, imageCache));
+        presoJSONBuilder.registerTypeAdapter(Presentation.class, new PresentationDeserializer(speakerStore, compactModel, slotTable));
         final Gson gson = presoJSONBuilder.create();
 
-        for (String day : DAYS) {
+        for (String day : days) {
             try {
                 LOGGER.log(Level.FINER, "Retrieving data for {0}", day);
-                String dataUrl = devoxxHost + "rooms/" + roomId + "/" + day;
+                String dataUrl = devoxxHost + "rooms/" + updateRoomId + "/" + day;
                 
                 LOGGER.log(Level.FINEST, "{0} URL = {1}", new Object[]{day, dataUrl});
-                String jsonString = "schedule-" + day + ".json";
+                // Per room, other screens may be downloading their room at the same time
+                String jsonString = "schedule-" + updateRoomId + "-" + day + ".json";
                 
                 ResourceUtil.download(dataUrl, jsonString);
-                parseScheduleJsonFile(jsonString, gson);
+                parseScheduleJsonFile(jsonString, gson, presentationMap);
             
             } catch (IOException | JsonParseException e) {
                 LOGGER.log(Level.SEVERE, "Failed to retrieve schedule for {0}", day);
@@ -150,15 +258,24 @@ public class DataFetcher {
             return false;
         }
 
-        LOGGER.log(Level.INFO, "Found [{0}] PRESENTATIONS\n", presentationMap.size());
+        LOGGER.log(Level.INFO, "Found [{0}] PRESENTATIONS", presentationMap.size());
+        LOGGER.log(Level.INFO, "Found [{0}] SPEAKERS\n", speakerStore.size());
         return true;
     }
 
-    private void parseScheduleJsonFile(String jsonString, Gson gson) throws IOException, JsonParseException {
+    private void parseScheduleJsonFile(String jsonString, Gson gson,
+                                       Map<String, Presentation> presentationMap) throws IOException, JsonParseException {
                 
-        final FileInputStream in = new FileInputStream(new File(jsonString));
+        final String json = WorkingFiles.read(jsonString);
+
+        final DayParseEvent event = Flight.newDayParseEvent();
+        if (event != null) {
+            event.begin();
+            event.file = jsonString;
+            event.bytes = json.length();
+        }
         
-        try(Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+        try(Reader reader = new StringReader(json)) {
             JsonParser parser = new JsonParser();
             JsonElement root = parser.parse(reader);
             
@@ -172,53 +289,20 @@ public class DataFetcher {
                 for (Presentation presentation : presentations) {
                     if (presentation != null && !presentation.title.isEmpty()) {
                         presentationMap.put(presentation.id, presentation);
+                        if (event != null) {
+                            event.presentations++;
+                        }
                     }
                 }
             }
-        }
-    }
-
-    /**
-     * Retrieve all the speakers data.
-     *
-     * @return true when successful
-     */
-    private boolean retrieveSpeakerDetails() {
-        LOGGER.finer("Retrieving speaker data...");
-
-        try {
-            ResourceUtil.download(devoxxHost + "speakers", SPEAKERS_JSON);
-
-            parseSpeakersJSONFile();
 
-        } catch (IOException | JsonParseException e) {
-            LOGGER.severe("Failed to retrieve speaker data!");
-            LOGGER.severe(e.getMessage());
-            return false;
-        }
-        
-        LOGGER.log(Level.INFO, "Found [{0}] SPEAKERS", speakerMap.size());
-        return true;
-    }
-
-    private void parseSpeakersJSONFile() throws IOException, JsonParseException {
-        
-        // Create the JSON Builder
-        final GsonBuilder speakerJSONBuilder = new GsonBuilder();
-        speakerJSONBuilder.registerTypeAdapter(Speaker.class, new SpeakerDeserializer(imageCache));
-        final Gson gson = speakerJSONBuilder.create();
-        
-        Speaker[] speakers;
-        
-        // Read Speakers JSON file and deserialize
-        FileInputStream in = new FileInputStream(new File(SPEAKERS_JSON));
-        try(Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)){
-            speakers = gson.fromJson(reader, Speaker[].class);
+            if (event != null) {
+                event.slots = slots.size();
+            }
+        } finally {
+            if (event != null) {
+                event.commit();
+            }
         }
-        
-        // Populate the speaker map
-        for (Speaker speaker : speakers) {
-            speakerMap.put(speaker.uuid, speaker);
-        }        
     }
 }
@@ -3,6 +3,10 @@
  */
 package devoxx;
 
+import devoxx.jfr.Flight;
+import devoxx.model.LobbyIndex;
+import devoxx.model.ScheduleSnapshot;
+import devoxx.model.SearchIndex;
 import devoxx.model.Speaker;
 import devoxx.model.Presentation;
 import java.io.BufferedReader;
@@ -10,21 +14,31 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.time.LocalDateTime;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.logging.ConsoleHandler;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javafx.animation.AnimationTimer;
 import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
 import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.stage.Screen;
 import javafx.stage.Stage;
-import javafx.stage.StageStyle;
 import javafx.util.Duration;
 
 import static javafx.animation.Animation.INDEFINITE;
@@ -44,25 +58,42 @@ import javafx.scene.input.KeyEvent;
 public class Devoxx extends Application {
 
     private final static Logger LOGGER = Logger.getLogger(Devoxx.class.getName());
-    private final static ConsoleHandler CONSOLDE_HANDLER = new ConsoleHandler();
+    private final static Logger DEVOXX_LOGGER = Logger.getLogger("devoxx");
+    private static AsyncLogHandler logHandler;
 
     private static final String CURRENT_ROOMTXT = "currentRoom.txt";
+    private static final String LOBBY = "lobby";
+    private static final String SEARCH = "search";
     
+    /* Exit status that asks the launcher to start the application again */
+    static final int RESTART_STATUS = 6;
+
+    /* The startup milestones reached, with the time since the JVM started */
+    private static final Map<String, Long> STARTUP = new ConcurrentHashMap<>();
+
     private static final int FIVE_MINUTES = 5;
     private static final int HALF_HOUR = 30;
 
     private ControlProperties controlProperties;
-    private FXMLDocumentController screenController;
-
-    private DataFetcher dataFetcher;
-    private String roomName;
-
-    private final List<Presentation> newPresentations = new ArrayList<>();
-    private List<Presentation> presentations;
-    private Presentation currentPresentation = null;
-    private Presentation firstPresentation;
-    private Presentation secondPresentation;
-    private Presentation thirdPresentation;
+    private ControlProperties loadedProperties;
+    private ConfigurationWatcher configurationWatcher;
+    private ResourceWatchdog watchdog;
+    private SpeakerStore speakerStore;
+    private RoomScreen primary;
+    private final List<RoomScreen> screens = new ArrayList<>();
+    private LobbyScreen lobby;
+    private final LobbyIndex lobbyIndex = new LobbyIndex();
+    private SearchScreen search;
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final List<DataFetcher> roomFetchers = new ArrayList<>();
+    private final List<ScheduleSnapshot> schedules = new ArrayList<>();
+
+    private Timeline screenTimeline;
+    private PauseTransition dataTimer;
+    private final RefreshPolicy refreshPolicy = new RefreshPolicy();
+    private final QuietHours quietHours = new QuietHours();
+    private final Map<Scene, Parent> quietScenes = new HashMap<>();
+    private PauseTransition wakeTimer;
     
     private BooleanProperty updating = new SimpleBooleanProperty();
 
@@ -82,25 +113,215 @@ public class Devoxx extends Application {
         // Print configuration info to std out for debugging
         printConfigInfo(propertiesFile, roomId);
 
-        // Retrieving all the Devoxx schedule data for the provided room
-        fetchRoomSchedule(roomId);
+        Flight.startRecording(controlProperties);
+
+        if (LOBBY.equals(roomId)) {
+            startLobby(stage);
+            return;
+        }
+
+        if (SEARCH.equals(roomId)) {
+            startSearch(stage);
+            return;
+        }
 
         // Get room name based on Devoxx BE or UK naming conventions
-        roomName = getRoomName(roomId);
+        final String roomName = getRoomName(roomId);
+
+        // All screens share the speakers and their photos
+        speakerStore = new SpeakerStore(controlProperties);
 
         // Start the JavaFX scene 
-        startFXScene(stage);
+        primary = new RoomScreen(() -> controlProperties,
+                new DataFetcher(controlProperties, roomId, speakerStore), Screen.getPrimary());
+        screens.add(primary);
+        startFXScene(stage, primary, roomName);
+
+        openScreens();
 
-        // Start data and JavaFX screen refresh timers
-        startDataRefreshTimer();
-        startScreenTimer();
         updating.addListener(e -> {
-            System.out.println("Updating changed, is now "+updating.get());
+            LOGGER.log(Level.FINE, "Updating changed, is now {0}", updating.get());
             if (!updating.get()) {
-                System.out.println("hide debug!");
-                screenController.hideDebug();
+                for (RoomScreen screen : screens) {
+                    screen.getController().hideDebug();
+                }
             }
         });
+
+        // Retrieving all the Devoxx schedule data for the provided room,
+        // this starts the data and JavaFX screen refresh timers when done
+        fetchRoomSchedule();
+    }
+
+    /**
+     * Show the lobby screen with what is on now and next in the rooms of
+     * lobby-rooms, instead of the schedule of one room.
+     *
+     * @param stage Where to present the lobby
+     */
+    private void startLobby(final Stage stage) {
+        final Map<String, String> roomNames = createRoomFetchers();
+
+        lobby = new LobbyScreen(new ArrayList<>(roomNames.keySet()), new ArrayList<>(roomNames.values()));
+        lobby.show(stage, Screen.getPrimary(), controlProperties, e -> handleKeyPress(null, e));
+
+        BackgroundExecutor.supply(this::fetchRooms)
+            .whenComplete((success, ex) -> Platform.runLater(() -> {
+                if (ex != null || !success) {
+                    System.err.println("Error retrieving initial data from server");
+                    System.err.println("Bailing out!");
+                    System.exit(1);
+                }
+
+                indexLobby();
+
+                startDataRefreshTimer();
+                startScreenTimer();
+                logStartup("schedule shown");
+
+                watchConfiguration();
+                startWatchdog();
+            }));
+    }
+
+    /**
+     * Show the search kiosk for the sessions of the rooms of lobby-rooms,
+     * instead of the schedule of one room.
+     *
+     * @param stage Where to present the kiosk
+     */
+    private void startSearch(final Stage stage) {
+        final Map<String, String> roomNames = createRoomFetchers();
+
+        search = new SearchScreen(searchIndex, roomNames);
+        search.show(stage, Screen.getPrimary(), controlProperties, e -> handleKeyPress(null, e));
+
+        BackgroundExecutor.supply(this::fetchRoomsAndIndex)
+            .whenComplete((success, ex) -> Platform.runLater(() -> {
+                if (ex != null || !success) {
+                    System.err.println("Error retrieving initial data from server");
+                    System.err.println("Bailing out!");
+                    System.exit(1);
+                }
+
+                search.search();
+
+                startDataRefreshTimer();
+                logStartup("search shown");
+
+                watchConfiguration();
+                startWatchdog();
+            }));
+    }
+
+    /**
+     * Create a data fetcher for every room of lobby-rooms, for the lobby
+     * screen and the search kiosk.
+     *
+     * @return The names of the rooms keyed by room ID, in the configured order
+     */
+    private Map<String, String> createRoomFetchers() {
+        final List<String> rooms = controlProperties.getLobbyRooms();
+        if (rooms.isEmpty()) {
+            System.out.println("Please specify the lobby-rooms to display");
+            System.exit(1);
+        }
+
+        speakerStore = new SpeakerStore(controlProperties);
+        final Map<String, String> roomNames = new LinkedHashMap<>();
+        for (String room : rooms) {
+            roomNames.put(room, getRoomName(room));
+            roomFetchers.add(new DataFetcher(controlProperties, room, speakerStore));
+        }
+        return roomNames;
+    }
+
+    /**
+     * Retrieve the schedules of the rooms and index the rooms with a new
+     * schedule for the search kiosk, in the background.
+     *
+     * @return True when the schedule of at least one room was retrieved
+     */
+    private boolean fetchRoomsAndIndex() {
+        final boolean retrieved = fetchRooms();
+
+        final long start = System.nanoTime();
+        int reindexed = 0;
+        for (DataFetcher fetcher : roomFetchers) {
+            if (searchIndex.update(fetcher.getSnapshot())) {
+                reindexed++;
+            }
+        }
+
+        if (reindexed > 0) {
+            LOGGER.log(Level.INFO, "Search: {0} rooms reindexed in {1} ms, {2} words of {3} sessions",
+                    new Object[]{reindexed, (System.nanoTime() - start) / 1_000_000,
+                        searchIndex.words(), searchIndex.size()});
+        }
+        return retrieved;
+    }
+
+    /**
+     * Retrieve the schedules of the lobby or search rooms, one room after
+     * the other
+     *
+     * @return True when the schedule of at least one room was retrieved
+     */
+    private boolean fetchRooms() {
+        boolean retrieved = false;
+        for (DataFetcher fetcher : roomFetchers) {
+            retrieved |= fetcher.updateData();
+        }
+        return retrieved;
+    }
+
+    /**
+     * Reindex the lobby rooms that have a new schedule and show the lobby
+     */
+    private void indexLobby() {
+        int reindexed = 0;
+        for (DataFetcher fetcher : roomFetchers) {
+            if (lobbyIndex.update(fetcher.getSnapshot())) {
+                reindexed++;
+            }
+        }
+
+        if (reindexed > 0) {
+            LOGGER.log(Level.INFO, "Lobby: {0} rooms reindexed, {1} sessions in {2} rooms",
+                    new Object[]{reindexed, lobbyIndex.size(), lobbyIndex.getRoomIds().size()});
+        }
+
+        lobby.update(lobbyIndex, controlProperties);
+    }
+
+    /**
+     * Open a stage on each further screen that has a room in screen-rooms.
+     * Not in replay mode, which only replays the first screen.
+     *
+     * @throws IOException If a scene can't be loaded
+     */
+    private void openScreens() throws IOException {
+        final List<String> rooms = controlProperties.getScreenRooms();
+        if (rooms.isEmpty() || controlProperties.isReplayMode()) {
+            return;
+        }
+
+        final List<Screen> displays = new ArrayList<>(Screen.getScreens());
+        displays.remove(Screen.getPrimary());
+
+        if (rooms.size() > displays.size()) {
+            LOGGER.log(Level.WARNING, "{0} screen rooms configured, but only {1} more screens attached",
+                    new Object[]{rooms.size(), displays.size()});
+        }
+
+        for (int i = 0; i < rooms.size() && i < displays.size(); i++) {
+            final String roomId = rooms.get(i);
+            final RoomScreen screen = new RoomScreen(() -> controlProperties,
+                    new DataFetcher(controlProperties, roomId, speakerStore), displays.get(i));
+            screens.add(screen);
+            startFXScene(new Stage(), screen, getRoomName(roomId));
+            LOGGER.log(Level.INFO, "Showing {0} on screen {1}", new Object[]{roomId, i + 2});
+        }
     }
 
     /**
@@ -161,48 +382,384 @@ public class Devoxx extends Application {
     }
 
     /**
-     * Fetch the data from the REST endpoint for selected room ID.
+     * Fetch the data from the REST endpoint for the rooms of all screens,
+     * one after the other.
+     */
+    private void fetchRoomSchedule() {
+
+        // Load the photo cache index once, in the background
+        BackgroundExecutor.execute(() -> PhotoCache.get(controlProperties.getImageCache()));
+
+        for (RoomScreen screen : screens) {
+            screen.getController().showDebugMsg("Fetching data room " + screen.getDataFetcher().getRoomId());
+        }
+
+        final List<RoomScreen> others = new ArrayList<>(screens.subList(1, screens.size()));
+
+        BackgroundExecutor.supply(() -> {
+                // Another room may be chosen with the keys while the first one loads
+                final DataFetcher fetcher = primary.getDataFetcher();
+                String roomId;
+                boolean success;
+                do {
+                    roomId = fetcher.getRoomId();
+                    success = fetcher.updateData();
+                } while (!success && !roomId.equals(fetcher.getRoomId()));
+
+                // The other screens are shown by the screen timer, or retried on the next refresh
+                for (RoomScreen screen : others) {
+                    final boolean retrieved = screen.getDataFetcher().updateData();
+                    Platform.runLater(() -> {
+                        screen.getController().hideDebug();
+                        if (!retrieved) {
+                            screen.getController().setOffline();
+                        }
+                    });
+                }
+                return success;
+            })
+            .whenComplete((success, ex) -> Platform.runLater(() -> {
+
+                // If the first read fails we don't really have any way to continue
+                if (ex != null || !success) {
+                    System.err.println("Error retrieving initial data from server");
+                    System.err.println("Bailing out!");
+                    System.exit(1);
+                }
+
+                primary.getController().hideDebug();
+
+                if (controlProperties.isReplayMode()) {
+                    startReplay();
+                    return;
+                }
+
+                // Start data and JavaFX screen refresh timers
+                startDataRefreshTimer();
+                startScreenTimer();
+                logStartup("schedule shown");
+
+                watchConfiguration();
+                startWatchdog();
+            }));
+    }
+
+    /**
+     * Replay the whole conference week with a replay clock instead of
+     * running the refresh timers, then exit with status 0 when the replay
+     * passed and 5 when it found an anomaly.
+     */
+    private void startReplay() {
+        final ReplayClock replayClock = new ReplayClock(Presentation.ZONE, 0);
+        setTimeSource(replayClock);
+
+        final ReplayHarness harness = new ReplayHarness(controlProperties, replayClock,
+                primary.getDataFetcher().getPresentationList(), new ReplayHarness.Screen() {
+                    @Override
+                    public Presentation update() {
+                        // The entry point of the screen timer, so the idle
+                        // allocation budget covers all of a screen update
+                        updateDisplay();
+                        return primary.getCurrentPresentation();
+                    }
+
+                    @Override
+                    public Presentation prepared() {
+                        return primary.getController().getPreparedPresentation();
+                    }
+                }, controlProperties.isReplayHeadless() ? primary.getRoot() : null);
+
+        harness.start(passed -> System.exit(passed ? 0 : 5));
+    }
+
+    /**
+     * Set the clock used for the current time outside of test mode
      *
-     * @param roomId the room ID
+     * @param timeSource The clock to use
      */
-    private void fetchRoomSchedule(final String roomId) {
+    void setTimeSource(final Clock timeSource) {
+        for (RoomScreen screen : screens) {
+            screen.setTimeSource(timeSource);
+        }
+        if (lobby != null) {
+            lobby.setTimeSource(timeSource);
+        }
+        refreshPolicy.setClock(timeSource);
+        quietHours.setClock(timeSource);
+    }
 
-        dataFetcher = new DataFetcher(controlProperties, roomId);
+    /**
+     * Keep an eye on the resources used over the days the screen runs
+     */
+    private void startWatchdog() {
+        watchdog = new ResourceWatchdog(controlProperties, shownRoots(), this::restart);
+        watchdog.start();
+    }
 
-        // If the first read fails we don't really have any way to continue
-        if (!dataFetcher.updateData()) {
-            System.err.println("Error retrieving initial data from server");
-            System.err.println("Bailing out!");
-            System.exit(1);
+    /**
+     * Get the scene roots of all screens
+     *
+     * @return The roots
+     */
+    private List<Parent> shownRoots() {
+        final List<Parent> roots = new ArrayList<>();
+        for (RoomScreen screen : screens) {
+            roots.add(screen.getRoot());
+        }
+        if (lobby != null) {
+            roots.add(lobby.getRoot());
+        }
+        if (search != null) {
+            roots.add(search.getRoot());
+        }
+        return roots;
+    }
+
+    /**
+     * Exit with RESTART_STATUS, so the launcher (scripts/devoxx-cds.sh or a
+     * systemd unit with RestartForceExitStatus=6) starts a fresh copy.  The
+     * application doesn't start the copy itself: that would leave it outside
+     * of the supervisor, and on the Pi the two JVMs would compete for the
+     * framebuffer.  The shutdown hooks write the working files and the log
+     * before the JVM ends.  The room, speakers and photos are all on disk,
+     * so the new instance only needs to refresh the schedule.
+     */
+    private void restart() {
+        showDebugMsg(primary, "Restarting");
+        dumpLog();
+
+        LOGGER.log(Level.WARNING, "Exiting with status {0} to be restarted", RESTART_STATUS);
+        System.exit(RESTART_STATUS);
+    }
+
+    /**
+     * Write the recent log records kept in memory to a file
+     */
+    private void dumpLog() {
+        try {
+            LOGGER.log(Level.INFO, "Recent log records written to {0}", logHandler.dump());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to write the recent log records", e);
         }
+    }
 
-        presentations = dataFetcher.getPresentationList();
+    /**
+     * Watch the properties file, if there is one, so changes are applied
+     * without restarting the application.
+     */
+    private void watchConfiguration() {
+        final String propertiesFile = controlProperties.getPropertyFileName();
+        if (propertiesFile == null) {
+            return;
+        }
+
+        configurationWatcher = new ConfigurationWatcher(propertiesFile, this::applyConfiguration);
+        configurationWatcher.start();
     }
 
-    private void startFXScene(final Stage stage) throws IOException {
-        final FXMLLoader myLoader = new FXMLLoader(getClass().getResource("FXMLDocument.fxml"));
-        final Parent root = (Parent) myLoader.load();
+    /**
+     * Apply a reloaded configuration, only what actually changed is
+     * restarted.  The schedule stays on screen while a new data fetcher is
+     * retrieving its first data.
+     *
+     * @param reloaded The configuration read from the changed file
+     */
+    private void applyConfiguration(final ControlProperties reloaded) {
+        final ControlProperties previous = controlProperties;
+        ControlProperties next = reloaded;
+
+        // Keep the keyboard test time unless the file changed the test clock
+        if (loadedProperties.isTestMode() == reloaded.isTestMode()
+                && loadedProperties.getTestDay() == reloaded.getTestDay()
+                && Objects.equals(loadedProperties.getTestTime(), reloaded.getTestTime())) {
+            next = reloaded.withTestClock(previous);
+        }
 
-        screenController = ((FXMLDocumentController) myLoader.getController());
+        loadedProperties = reloaded;
+        controlProperties = next;
 
-        if (controlProperties.isTestMode()) {
-            root.setScaleX(controlProperties.getTestScale());
-            root.setScaleY(controlProperties.getTestScale());
+        if (!previous.getLoggingLevel().equals(next.getLoggingLevel())) {
+            DEVOXX_LOGGER.setLevel(next.getLoggingLevel());
+            logHandler.setLevel(next.getLoggingLevel());
         }
 
-        screenController.setClock(controlProperties);
+        BackgroundExecutor.setFxThreadCheck(next.isFxThreadCheck());
+        PhotoCache.setMaxBytes(next.getImageCacheSize() * 1024 * 1024L);
+        WorkingFiles.configure(next);
 
-        final Scene scene = new Scene(root);
-        scene.setOnKeyPressed(e -> handleKeyPress(e));
-        scene.setFill(null);
+        // The search kiosk has no screen timer, the quiet screens have it stopped
+        if (previous.getScreenRefreshTime() != next.getScreenRefreshTime() && screenTimeline != null) {
+            LOGGER.log(Level.INFO, "Screen refresh time changed to {0}s", next.getScreenRefreshTime());
+            screenTimeline.stop();
+            if (wakeTimer == null) {
+                startScreenTimer();
+            }
+        }
 
-        stage.initStyle(StageStyle.UNDECORATED);
-        stage.setScene(scene);
-        stage.show();
+        if (wakeTimer != null && (previous.isQuietHours() != next.isQuietHours()
+                || previous.getQuietWarmupTime() != next.getQuietWarmupTime())) {
+            wakeTimer.stop();
+            leaveQuietHours();
+        }
 
-        screenController.setRoom(roomName);
-        
-        screenController.hideDebug();
+        if (previous.getDataRefreshTime() != next.getDataRefreshTime()
+                || previous.isDataRefreshAdaptive() != next.isDataRefreshAdaptive()
+                || previous.getDataRefreshBusyTime() != next.getDataRefreshBusyTime()
+                || previous.getDataRefreshIdleTime() != next.getDataRefreshIdleTime()
+                || previous.getConferenceDays() != next.getConferenceDays()) {
+            LOGGER.log(Level.INFO, "Data refresh time changed to {0}m", next.getDataRefreshTime());
+            dataTimer.stop();
+            startDataRefreshTimer();
+        }
+
+        if (previous.getWatchdogInterval() != next.getWatchdogInterval()
+                || previous.getWatchdogHeapBudget() != next.getWatchdogHeapBudget()
+                || previous.getWatchdogThreadBudget() != next.getWatchdogThreadBudget()
+                || previous.getWatchdogFileBudget() != next.getWatchdogFileBudget()
+                || previous.getWatchdogNodeBudget() != next.getWatchdogNodeBudget()
+                || previous.getWatchdogRestartGrowth() != next.getWatchdogRestartGrowth()) {
+            watchdog.stop();
+            startWatchdog();
+        }
+
+        if (previous.getTestScale() != next.getTestScale()
+                || previous.isFlattenBackground() != next.isFlattenBackground()) {
+            LOGGER.warning("Display scale and background changes need a restart");
+        }
+
+        if (!previous.getDevoxxHost().equals(next.getDevoxxHost())
+                || !previous.getStartDate().equals(next.getStartDate())
+                || previous.getConferenceDays() != next.getConferenceDays()
+                || !previous.getImageCache().equals(next.getImageCache())
+                || previous.isCompactModel() != next.isCompactModel()
+                || previous.getSpeakerTTL() != next.getSpeakerTTL()
+                || previous.getSpeakerNegativeTTL() != next.getSpeakerNegativeTTL()) {
+            for (RoomScreen screen : screens) {
+                screen.getController().setReleasePhotos(next.isCompactModel());
+            }
+            replaceDataFetchers(next);
+            if (!roomFetchers.isEmpty()) {
+                LOGGER.warning("Data source changes of the lobby and search screens need a restart");
+            }
+        } else {
+            updateDisplay();
+        }
+    }
+
+    /**
+     * Build data fetchers for the new configuration and only switch to them
+     * once they have all retrieved the schedule, until then the current
+     * data is shown.
+     *
+     * @param configuration The configuration for the new data fetchers
+     */
+    private void replaceDataFetchers(final ControlProperties configuration) {
+        LOGGER.info("Data source changed, retrieving the schedule again");
+        final SpeakerStore store = new SpeakerStore(configuration);
+        final List<RoomScreen> targets = new ArrayList<>(screens);
+        final List<DataFetcher> fetchers = new ArrayList<>();
+        for (RoomScreen screen : targets) {
+            fetchers.add(new DataFetcher(configuration, screen.getDataFetcher().getRoomId(), store));
+        }
+
+        BackgroundExecutor.supply(() -> {
+                for (DataFetcher fetcher : fetchers) {
+                    if (!fetcher.updateData()) {
+                        return false;
+                    }
+                }
+                return true;
+            })
+            .whenComplete((success, ex) -> Platform.runLater(() -> {
+                if (ex != null || !success) {
+                    LOGGER.warning("New data source failed, keeping the current schedule");
+                    for (RoomScreen screen : targets) {
+                        screen.getController().setOffline();
+                    }
+                    return;
+                }
+
+                speakerStore = store;
+                final List<RoomScreen> switched = new ArrayList<>();
+                for (int i = 0; i < targets.size(); i++) {
+                    final RoomScreen screen = targets.get(i);
+                    final DataFetcher fetcher = fetchers.get(i);
+
+                    // The room may have been switched while the new data was fetched
+                    final String roomId = screen.getDataFetcher().getRoomId();
+                    screen.setDataFetcher(fetcher);
+                    screen.getController().setRoom(getRoomName(roomId));
+                    screen.getController().setOnline();
+
+                    if (roomId.equals(fetcher.getRoomId())) {
+                        screen.updateDisplay();
+                    } else {
+                        fetcher.setRoomId(roomId);
+                        switched.add(screen);
+                    }
+                }
+
+                if (!switched.isEmpty()) {
+                    updateData(switched);
+                }
+            }));
+    }
+
+    /**
+     * Show the scene of a screen on its display
+     *
+     * @param stage The stage to show the scene in
+     * @param screen The screen to show
+     * @param roomName The name of the room shown
+     */
+    private void startFXScene(final Stage stage, final RoomScreen screen,
+                              final String roomName) {
+        final boolean visible = !(controlProperties.isReplayMode() && controlProperties.isReplayHeadless());
+        screen.show(stage, roomName, e -> handleKeyPress(screen, e), visible);
+
+        if (visible && screen == primary) {
+
+            // The first pulse after showing the stage renders the first frame
+            new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    stop();
+                    logStartup("first frame");
+                }
+            }.start();
+        }
+    }
+
+    /**
+     * Log the time since the JVM started, to compare startup options such
+     * as the class data sharing archive.
+     *
+     * @param milestone What has been reached
+     */
+    private static void logStartup(final String milestone) {
+        final long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        STARTUP.putIfAbsent(milestone, uptime);
+        LOGGER.log(Level.INFO, "Startup: {0} after {1} ms", new Object[]{milestone, uptime});
+    }
+
+    /**
+     * Get the time since the JVM started when a startup milestone was first
+     * reached, e.g. for the performance test.
+     *
+     * @param milestone The milestone, e.g. "first frame"
+     * @return The time in milliseconds or null when not reached yet
+     */
+    static Long getStartupTime(final String milestone) {
+        return STARTUP.get(milestone);
+    }
+
+    /**
+     * Get the screen on the primary display
+     *
+     * @return The screen or null for the lobby or search screen
+     */
+    RoomScreen getPrimary() {
+        return primary;
     }
 
     /**
@@ -211,24 +768,53 @@ public class Devoxx extends Application {
      * happening
      */
     private void startScreenTimer() {
-        Timeline updateTimeline = new Timeline(new KeyFrame(
+        screenTimeline = new Timeline(new KeyFrame(
                 Duration.seconds(controlProperties.getScreenRefreshTime()),
                 (ActionEvent t) -> updateDisplay()));
-        updateTimeline.setCycleCount(INDEFINITE);
-        updateTimeline.getKeyFrames().get(0).getOnFinished().handle(null);
-        updateTimeline.play();
+        screenTimeline.setCycleCount(INDEFINITE);
+        screenTimeline.getKeyFrames().get(0).getOnFinished().handle(null);
+        screenTimeline.play();
     }
 
     /**
-     * Use a Time line to periodically check for any updates to the published
-     * data in case of last minute changes
+     * Periodically check for any updates to the published data in case of
+     * last minute changes, how long to wait for the next check is decided
+     * by the refresh policy every time.
      */
     private void startDataRefreshTimer() {
-        Timeline downloadTimeline = new Timeline(new KeyFrame(
-                Duration.minutes(controlProperties.getDataRefreshTime()),
-                (ActionEvent t) -> updateData()));
-        downloadTimeline.setCycleCount(INDEFINITE);
-        downloadTimeline.play();
+        final long delay = refreshPolicy.nextDelay(controlProperties, shownSchedules());
+        dataTimer = new PauseTransition(Duration.seconds(delay));
+        dataTimer.setOnFinished(e -> {
+            updateData();
+            startDataRefreshTimer();
+        });
+        dataTimer.play();
+    }
+
+    /**
+     * Get the schedules of all rooms shown.  The list is refilled in place,
+     * so the screen timer doesn't allocate, and only valid until the next
+     * call.
+     *
+     * @return The latest schedule snapshots
+     */
+    private List<ScheduleSnapshot> shownSchedules() {
+        final int count = screens.size() + roomFetchers.size();
+        while (schedules.size() > count) {
+            schedules.remove(schedules.size() - 1);
+        }
+
+        for (int i = 0; i < count; i++) {
+            final ScheduleSnapshot snapshot = i < screens.size()
+                    ? screens.get(i).getDataFetcher().getSnapshot()
+                    : roomFetchers.get(i - screens.size()).getSnapshot();
+            if (i < schedules.size()) {
+                schedules.set(i, snapshot);
+            } else {
+                schedules.add(snapshot);
+            }
+        }
+        return schedules;
     }
 
     /**
@@ -242,10 +828,19 @@ public class Devoxx extends Application {
             final String roomId) throws SecurityException {
 
         controlProperties = new ControlProperties(propertiesFile);
-        LOGGER.setLevel(controlProperties.getLoggingLevel());
-        LOGGER.setUseParentHandlers(false);
-        CONSOLDE_HANDLER.setLevel(controlProperties.getLoggingLevel());
-        LOGGER.addHandler(CONSOLDE_HANDLER);
+        loadedProperties = controlProperties;
+        BackgroundExecutor.setFxThreadCheck(controlProperties.isFxThreadCheck());
+        PhotoCache.setMaxBytes(controlProperties.getImageCacheSize() * 1024 * 1024L);
+        WorkingFiles.configure(controlProperties);
+        // On the package logger, the loggers of all classes inherit it
+        DEVOXX_LOGGER.setLevel(controlProperties.getLoggingLevel());
+
+        // All classes log through the asynchronous handler instead of the
+        // synchronous console handler of the root logger
+        logHandler = new AsyncLogHandler(controlProperties.getLogRingSize());
+        logHandler.setLevel(controlProperties.getLoggingLevel());
+        DEVOXX_LOGGER.setUseParentHandlers(false);
+        DEVOXX_LOGGER.addHandler(logHandler);
 
         LOGGER.fine("===================================================");
         LOGGER.log(Level.FINE, "=== DEVOXX DISPLAY APP for [{0}]", roomId);
@@ -306,6 +901,33 @@ public class Devoxx extends Application {
         return roomNumber;
     }
 
+    /**
+     * Update the data of all screens, one room after the other.
+     */
+    private void updateData() {
+        if (lobby != null) {
+            updating.set(true);
+            BackgroundExecutor.supply(this::fetchRooms)
+                .whenComplete((success, ex) -> Platform.runLater(() -> {
+                    updating.set(false);
+                    indexLobby();
+                }));
+            return;
+        }
+
+        if (search != null) {
+            updating.set(true);
+            BackgroundExecutor.supply(this::fetchRoomsAndIndex)
+                .whenComplete((success, ex) -> Platform.runLater(() -> {
+                    updating.set(false);
+                    search.search();
+                }));
+            return;
+        }
+
+        updateData(screens);
+    }
+
     /**
      * This needs to be called on the FX App thread.
      * When we update the data, we set the updating property to true.
@@ -315,120 +937,191 @@ public class Devoxx extends Application {
      * while fetching the data happens on another thread.
      * Note that we need to update the display on the FX App thread, hence
      * th call to Platform.runLater()
+     *
+     * @param targets The screens to update the data of
      */
-    private void updateData() {
+    private void updateData(final List<RoomScreen> targets) {
         if (!Platform.isFxApplicationThread()) {
             System.err.println("This should never happen: updateData is called from a non-FX Thread. See stack trace below:");
             Thread.dumpStack();
             return;
         }
         updating.set(true);
+        final List<RoomScreen> updated = new ArrayList<>(targets);
         Task task = new Task() {
             @Override
             protected Object call() throws Exception {
-                try {
-
-                    if (dataFetcher.updateData()) {
-                        screenController.setOnline();
-                        Platform.runLater(() -> updateDisplay());
-                    } else {
-                        screenController.setOffline();
+                for (RoomScreen screen : updated) {
+                    try {
+                        final String roomId = screen.getDataFetcher().getRoomId();
+
+                        if (screen.getDataFetcher().updateData()) {
+                            Platform.runLater(() -> {
+                                screen.getController().setOnline();
+                                screen.updateDisplay();
+                                screen.endRoomSwitch(true);
+                            });
+                        } else if (!roomId.equals(screen.getDataFetcher().getRoomId())) {
+                            // Discarded, the update for the new room follows
+                            LOGGER.log(Level.FINE, "Data of {0} discarded", roomId);
+                        } else {
+                            Platform.runLater(() -> {
+                                screen.getController().setOffline();
+                                screen.endRoomSwitch(false);
+                            });
+                        }
+                    } catch (Exception e) {
+                        LOGGER.log(Level.WARNING, "Unable to update the data of " + screen.getDataFetcher().getRoomId(), e);
                     }
-                } catch (Exception e) {
-                    e.printStackTrace();
                 }
                 return null;
             }
         };
-        Thread t = new Thread(task);
         task.setOnSucceeded(e -> updating.set(false));
-        t.start();
+        BackgroundExecutor.execute(task);
     }
 
     /**
-     * Update the display
+     * Update the display of all screens
      */
     private void updateDisplay() {
-        LocalDateTime now;
-
-        screenController.setClock(controlProperties);
-
-        if (controlProperties.isTestMode()) {
-            now = LocalDateTime.of(
-                    controlProperties.getStartDate()
-                    .plusDays(controlProperties.getTestDay()),
-                    controlProperties.getTestTime());
-        } else {
-            now = LocalDateTime.now();
+        if (wakeTimer != null || enterQuietHours()) {
+            return;
         }
 
-        LOGGER.log(Level.FINER, "Date and time of update = {0}", now);
-        newPresentations.clear();
+        for (int i = 0; i < screens.size(); i++) {
+            screens.get(i).updateDisplay();
+        }
+        if (lobby != null) {
+            lobby.update(lobbyIndex, controlProperties);
+        }
+    }
 
-        for (Presentation presentation : presentations) {
-            if (now.isBefore(presentation.toTime)) {
-                newPresentations.add(presentation);
-            }
+    /**
+     * Go quiet when the schedule says no session is coming up soon: show a
+     * static screen, stop the screen timer and the clocks and release the
+     * decoded photos.  The data refresh goes on, the refresh policy slows
+     * it down overnight.  The search kiosk is used at any hour, so it is
+     * never quiet.
+     *
+     * @return True when the screens went quiet
+     */
+    private boolean enterQuietHours() {
+        // Checked before collecting the schedules, this runs on every screen update
+        if (search != null || !QuietHours.isEnabled(controlProperties)) {
+            return false;
+        }
 
-            if (newPresentations.size() >= 3) {
-                break;
-            }
+        final long quiet = quietHours.quietFor(controlProperties, shownSchedules());
+        if (quiet == 0) {
+            return false;
         }
 
-        firstPresentation = newPresentations.size() >= 1 ? newPresentations.get(0) : null;
-        secondPresentation = newPresentations.size() >= 2 ? newPresentations.get(1) : null;
-        thirdPresentation = newPresentations.size() >= 3 ? newPresentations.get(2) : null;
-        LOGGER.log(Level.FINE, "Screen update @ ({0})", now);
+        LOGGER.log(Level.INFO, quiet > 0 ? "Quiet hours, warming up in {0} minutes"
+                : "Quiet hours, no more sessions", quiet / 60);
 
-        if (currentPresentation != firstPresentation) {
-            currentPresentation = firstPresentation;
-            screenController.setScreenData(firstPresentation, secondPresentation, thirdPresentation);
-            LOGGER.log(Level.FINER, "New presentation: {0}", firstPresentation);
+        screenTimeline.stop();
+        for (RoomScreen screen : screens) {
+            screen.suspend();
+        }
 
-            if (secondPresentation != null) {
-                LOGGER.log(Level.FINER, "Second presentation: {0}", secondPresentation);
+        for (Parent root : shownRoots()) {
+            final Scene scene = root.getScene();
+            if (scene != null) {
+                quietScenes.put(scene, root);
+                scene.setRoot(quietHours.createScreen());
             }
+        }
 
-            if (thirdPresentation != null) {
-                LOGGER.log(Level.FINER, "Third presentation: {0}", thirdPresentation);
+        for (ScheduleSnapshot schedule : shownSchedules()) {
+            for (Speaker speaker : schedule.speakers.values()) {
+                speaker.releasePhoto();
             }
         }
+
+        scheduleWakeUp(quiet);
+        return true;
     }
 
     /**
-     * Force refresh of the speakers image cache via key "R".
+     * Wake up at the end of the quiet hours, or check again after
+     * data-refresh-idle-time when there are no more sessions (a new
+     * schedule may have some).
+     *
+     * @param quiet Time (in seconds) until the screens have to warm up, -1
+     * when there are no more sessions
      */
-    private void refreshImageCache() {
+    private void scheduleWakeUp(final long quiet) {
+        final long delay = quiet > 0 ? quiet : controlProperties.getDataRefreshIdleTime() * 60L;
+        wakeTimer = new PauseTransition(Duration.seconds(Math.max(60, delay)));
+        wakeTimer.setOnFinished(e -> {
+            final long again = quietHours.quietFor(controlProperties, shownSchedules());
+            if (again != 0) {
+                scheduleWakeUp(again);
+            } else {
+                leaveQuietHours();
+            }
+        });
+        wakeTimer.play();
+    }
 
-        final String imageCache = controlProperties.getImageCache();
-        LOGGER.log(Level.FINER, "Recreating speaker cache at {0}", imageCache);
+    /**
+     * Show the schedule again, with fresh data and a running clock
+     */
+    private void leaveQuietHours() {
+        LOGGER.info("End of the quiet hours, warming up");
+        wakeTimer = null;
 
-        final File file = new File(imageCache);
-        if (file.isDirectory()) {
+        for (Map.Entry<Scene, Parent> quietScene : quietScenes.entrySet()) {
+            quietScene.getKey().setRoot(quietScene.getValue());
+        }
+        quietScenes.clear();
 
-            int totalCacheFiles = file.listFiles().length;
-            for (File cacheFile : file.listFiles()) {
-                cacheFile.delete();
-            }
+        for (RoomScreen screen : screens) {
+            screen.resume();
+        }
 
-            LOGGER.log(Level.FINER, "Deleted all {0} speaker cache photos", totalCacheFiles);
+        updateData();
+        startScreenTimer();
+    }
 
-            for (Presentation preso : presentations) {
-                for (Speaker speaker : preso.speakers) {
-                    speaker.cachePhoto();
-                    LOGGER.log(Level.FINER, "Created speaker cache for {0}", speaker.fullName);
-                }
-            }
-        } else {
-            LOGGER.log(Level.FINER, "Speaker cache does not exist {0}", imageCache);
+    /**
+     * Force refresh of the speakers image cache via key "R".  Instead of
+     * deleting the cache, the photos of the speakers of all screens are
+     * revalidated in the background, after which the schedule data is
+     * updated.
+     */
+    private void refreshImageCache() {
+
+        final Set<Speaker> speakers = new HashSet<>();
+        for (RoomScreen screen : screens) {
+            speakers.addAll(screen.getDataFetcher().getSnapshot().speakers.values());
+        }
+        for (DataFetcher fetcher : roomFetchers) {
+            speakers.addAll(fetcher.getSnapshot().speakers.values());
+        }
+        LOGGER.log(Level.FINER, "Revalidating {0} speaker photos", speakers.size());
+
+        final List<CompletableFuture<Void>> revalidations = new ArrayList<>();
+        for (Speaker speaker : speakers) {
+            revalidations.add(CompletableFuture.runAsync(speaker::revalidatePhoto,
+                    BackgroundExecutor::execute));
         }
+
+        CompletableFuture.allOf(revalidations.toArray(new CompletableFuture<?>[revalidations.size()]))
+            .whenComplete((result, ex) -> Platform.runLater(() -> {
+                LOGGER.log(Level.FINER, "Revalidated {0} speaker photos", speakers.size());
+                updateData();
+            }));
     }
     
-    private void setRoom(int roomNumber) {
+    private void setRoom(final RoomScreen screen, int roomNumber) {
+        if (screen == null) {
+            return;
+        }
 
         // TODO How to force a screen refresh before we continue, different thread?
-        screenController.showDebugMsg("Fetching data room " + roomNumber);        
-              System.out.println("SHOW debug!");
+        screen.getController().showDebugMsg("Fetching data room " + roomNumber);        
         String roomId;
         if (roomNumber == 0) {
             roomId = "aud_room";
@@ -436,97 +1129,125 @@ public class Devoxx extends Application {
             roomId = "room" + roomNumber; 
         }
 
-        writeRoomToSystem(roomId);
-
-        screenController.setRoom(getRoomName(roomId));
-
-        dataFetcher.clearAll();
-
-        dataFetcher.setRoomId(roomId);
+        // Only the room of the first screen is remembered, the others come from screen-rooms
+        if (screen == primary) {
+            BackgroundExecutor.execute(() -> writeRoomToSystem(roomId));
+        }
 
-        currentPresentation = null;
+        screen.switchRoom(roomId, getRoomName(roomId));
 
-        updateData();
+        updateData(Collections.singletonList(screen));
 
-       // screenController.hideDebug();
+       // screen.getController().hideDebug();
        
     }
 
+    /**
+     * Show a message on a room screen, the lobby and search screens have no
+     * message area
+     *
+     * @param screen The screen or null for the lobby or search screen
+     * @param message The message to show
+     */
+    private static void showDebugMsg(final RoomScreen screen, final String message) {
+        if (screen != null) {
+            screen.getController().showDebugMsg(message);
+        }
+    }
+
     /**
      * Add a simple way to exit the app. Obviously you need to plug a keyboard
      * in, but it's better than pulling out the power lead and hoping you don't
      * corrupt the file system or having to SSH in.
      *
+     * @param screen The screen the key was pressed on, null for the lobby or
+     * search screen
      * @param keyEvent The details of which key was pressed
      */
-    private void handleKeyPress(KeyEvent keyEvent) {
+    private void handleKeyPress(final RoomScreen screen, KeyEvent keyEvent) {
         KeyCode code = keyEvent.getCode();
         if (null != code) {
             switch (code) {
                 case DIGIT0:
-                    setRoom(0);
+                    setRoom(screen, 0);
                     break;
                 case DIGIT1:
-                    setRoom(1);
+                    setRoom(screen, 1);
                     break;
                 case DIGIT2:
-                    setRoom(2);
+                    setRoom(screen, 2);
                     break;
                 case DIGIT3:
-                    setRoom(3);
+                    setRoom(screen, 3);
                     break;
                 case DIGIT4:
-                    setRoom(4);
+                    setRoom(screen, 4);
                     break;
                 case DIGIT5:
-                    setRoom(5);
+                    setRoom(screen, 5);
                     break;
                 case DIGIT6:
-                    setRoom(6);
+                    setRoom(screen, 6);
                     break;
                 case DIGIT7:
-                    setRoom(7);
+                    setRoom(screen, 7);
                     break;
                 case DIGIT8:
-                    setRoom(8);
+                    setRoom(screen, 8);
                     break;
                 case DIGIT9:
-                    setRoom(9);
+                    setRoom(screen, 9);
                     break;
                 case Q:
-                    screenController.showDebugMsg("Quitting");
+                    showDebugMsg(screen, "Quitting");
                     System.exit(0);
                 case UP:
-                    controlProperties.incrementTestTime(FIVE_MINUTES);
+                    controlProperties = controlProperties.incrementTestTime(FIVE_MINUTES);
                     updateDisplay();
                     break;
                 case DOWN:
-                    controlProperties.decrementTestTime(FIVE_MINUTES);
+                    controlProperties = controlProperties.decrementTestTime(FIVE_MINUTES);
                     updateDisplay();
                     break;
                 case LEFT:
-                    controlProperties.decrementTestTime(HALF_HOUR);
+                    controlProperties = controlProperties.decrementTestTime(HALF_HOUR);
                     updateDisplay();
                     break;
                 case RIGHT:
-                    controlProperties.incrementTestTime(HALF_HOUR);
+                    controlProperties = controlProperties.incrementTestTime(HALF_HOUR);
                     updateDisplay();
                     break;
                 case U:
-                    screenController.showDebugMsg("Update display");
+                    showDebugMsg(screen, "Update display");
                     updateDisplay();
                     break;
                 case D:
-                    screenController.showDebugMsg("Update data");
+                    showDebugMsg(screen, "Update data");
                     updateData();
                     break;
                 case R:
-                    screenController.showDebugMsg("Reloading data");
+                    showDebugMsg(screen, "Reloading data");
                     refreshImageCache();
-                    updateData();
+                    break;
+                case P:
+                    PulseMonitor.measure(controlProperties.isFlattenBackground()
+                            ? "flattened background" : "live background", 10);
+                    break;
+                case J:
+                    Flight.dumpRecording();
+                    break;
+                case L:
+                    BackgroundExecutor.execute(this::dumpLog);
+                    break;
+                case M:
+                    for (DataFetcher fetcher : screen == null ? roomFetchers
+                            : Collections.singletonList(screen.getDataFetcher())) {
+                        LOGGER.info(ModelFootprint.report(fetcher.getSnapshot(),
+                                controlProperties.isCompactModel()));
+                    }
                     break;
                 case T:
-                    controlProperties.toggleRunMode();
+                    controlProperties = controlProperties.toggleRunMode();
                     updateDisplay();
                     updateData();
                     break;
@@ -535,7 +1256,7 @@ public class Devoxx extends Application {
             }
         }
         
-     //   screenController.hideDebug();
+     //   screen.getController().hideDebug();
     }
 
     /**
@@ -0,0 +1,191 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import java.net.URL;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.geometry.Insets;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.control.Labeled;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.Shape;
+import javafx.scene.text.Font;
+import javafx.stage.Screen;
+
+/**
+ * Converts the screen layout, designed for 1920x1080, to the resolution of
+ * the actual display.  Every position, size and font is multiplied by the
+ * display scale and every bundled bitmap is decoded at its final on-screen
+ * size, so no transform scaling (and no oversized textures) are needed on
+ * 720p screens.
+ */
+public final class DisplayScaler {
+
+    private final static Logger LOGGER = Logger.getLogger(DisplayScaler.class.getName());
+
+    public static final double DESIGN_WIDTH = 1920;
+    public static final double DESIGN_HEIGHT = 1080;
+
+    private static final String IMAGES = "images/";
+
+    private DisplayScaler() {
+    }
+
+    /**
+     * Get the display scale: the test scale in test mode, otherwise the
+     * scale at which the design fits the primary screen.
+     *
+     * @param controlProperties control properties
+     * @return The display scale
+     */
+    public static double detectScale(final ControlProperties controlProperties) {
+        return detectScale(controlProperties, Screen.getPrimary());
+    }
+
+    /**
+     * Get the display scale: the test scale in test mode, otherwise the
+     * scale at which the design fits the given screen.
+     *
+     * @param controlProperties control properties
+     * @param screen The screen the design is shown on
+     * @return The display scale
+     */
+    public static double detectScale(final ControlProperties controlProperties, final Screen screen) {
+        if (controlProperties.isTestMode()) {
+            return controlProperties.getTestScale();
+        }
+
+        final Rectangle2D bounds = screen.getBounds();
+        final double scale = Math.min(bounds.getWidth() / DESIGN_WIDTH,
+                bounds.getHeight() / DESIGN_HEIGHT);
+        LOGGER.log(Level.FINE, "Display is {0}x{1}, scale {2}",
+                new Object[]{bounds.getWidth(), bounds.getHeight(), scale});
+        return scale;
+    }
+
+    /**
+     * Scale the given node and all its descendants.
+     *
+     * @param node The root of the tree to scale
+     * @param scale The display scale
+     */
+    public static void scale(final Node node, final double scale) {
+        node.setLayoutX(node.getLayoutX() * scale);
+        node.setLayoutY(node.getLayoutY() * scale);
+        node.setTranslateX(node.getTranslateX() * scale);
+        node.setTranslateY(node.getTranslateY() * scale);
+
+        if (node instanceof Region) {
+            scaleRegion((Region) node, scale);
+        }
+
+        if (node instanceof Shape) {
+            scaleShape((Shape) node, scale);
+        }
+
+        if (node instanceof Labeled) {
+            final Labeled labeled = (Labeled) node;
+            final Font font = labeled.getFont();
+            labeled.setFont(new Font(font.getName(), font.getSize() * scale));
+            labeled.setGraphicTextGap(labeled.getGraphicTextGap() * scale);
+        }
+
+        if (node instanceof ImageView) {
+            scaleImageView((ImageView) node, scale);
+        }
+
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                scale(child, scale);
+            }
+        }
+    }
+
+    private static void scaleRegion(final Region region, final double scale) {
+        region.setPrefWidth(scaleSize(region.getPrefWidth(), scale));
+        region.setPrefHeight(scaleSize(region.getPrefHeight(), scale));
+        region.setMinWidth(scaleSize(region.getMinWidth(), scale));
+        region.setMinHeight(scaleSize(region.getMinHeight(), scale));
+        region.setMaxWidth(scaleSize(region.getMaxWidth(), scale));
+        region.setMaxHeight(scaleSize(region.getMaxHeight(), scale));
+
+        final Insets padding = region.getPadding();
+        region.setPadding(new Insets(padding.getTop() * scale, padding.getRight() * scale,
+                padding.getBottom() * scale, padding.getLeft() * scale));
+
+        if (region instanceof VBox) {
+            ((VBox) region).setSpacing(((VBox) region).getSpacing() * scale);
+        } else if (region instanceof HBox) {
+            ((HBox) region).setSpacing(((HBox) region).getSpacing() * scale);
+        }
+    }
+
+    /**
+     * Only scale real sizes, not USE_COMPUTED_SIZE, USE_PREF_SIZE or MAX_VALUE
+     */
+    private static double scaleSize(final double size, final double scale) {
+        return size > 0 && size < Double.MAX_VALUE ? size * scale : size;
+    }
+
+    private static void scaleShape(final Shape shape, final double scale) {
+        shape.setStrokeWidth(shape.getStrokeWidth() * scale);
+
+        if (shape instanceof Rectangle) {
+            final Rectangle rectangle = (Rectangle) shape;
+            rectangle.setWidth(rectangle.getWidth() * scale);
+            rectangle.setHeight(rectangle.getHeight() * scale);
+            rectangle.setArcWidth(rectangle.getArcWidth() * scale);
+            rectangle.setArcHeight(rectangle.getArcHeight() * scale);
+        } else if (shape instanceof Line) {
+            final Line line = (Line) shape;
+            line.setStartX(line.getStartX() * scale);
+            line.setStartY(line.getStartY() * scale);
+            line.setEndX(line.getEndX() * scale);
+            line.setEndY(line.getEndY() * scale);
+        } else if (shape instanceof Circle) {
+            final Circle circle = (Circle) shape;
+            circle.setCenterX(circle.getCenterX() * scale);
+            circle.setCenterY(circle.getCenterY() * scale);
+            circle.setRadius(circle.getRadius() * scale);
+        }
+    }
+
+    /**
+     * Decode a bundled bitmap (images/[id].png) again at its final size,
+     * unless it was decoded at a requested size, i.e. already at its final
+     * size by the generated scene.  Other images are left to the GPU by
+     * setting the fit size.
+     */
+    private static void scaleImageView(final ImageView view, final double scale) {
+        final Image image = view.getImage();
+        if (image == null || image.getRequestedWidth() > 0 || image.getRequestedHeight() > 0) {
+            return;
+        }
+
+        final double width = (view.getFitWidth() > 0 ? view.getFitWidth() : image.getWidth()) * scale;
+        final double height = (view.getFitHeight() > 0 ? view.getFitHeight() : image.getHeight()) * scale;
+
+        final URL resource = view.getId() == null ? null
+            : Devoxx.class.getResource(IMAGES + view.getId() + ".png");
+
+        if (resource != null) {
+            view.setImage(new Image(resource.toExternalForm(), width, height, false, true));
+            view.setFitWidth(0);
+            view.setFitHeight(0);
+        } else {
+            view.setFitWidth(width);
+            view.setFitHeight(height);
+        }
+    }
+}
@@ -4,6 +4,8 @@
 package devoxx;
 
 import devoxx.Devoxx;
+import devoxx.jfr.Flight;
+import devoxx.jfr.ScreenDataEvent;
 import devoxx.model.Speaker;
 import devoxx.model.Presentation;
 import java.net.Inet4Address;
@@ -12,26 +14,42 @@ import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.time.Clock;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ReadOnlyStringProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.control.Label;
 import javafx.scene.image.ImageView;
-import javafx.scene.input.MouseEvent;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.InputEvent;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.shape.Circle;
+import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.Shape;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
 import javafx.util.Duration;
 
 /**
@@ -40,19 +58,36 @@ import javafx.util.Duration;
  */
 public class FXMLDocumentController implements Initializable {
 
+    private final static Logger LOGGER = Logger.getLogger(FXMLDocumentController.class.getName());
+
     private static final int MAX_VISIBILE_SPEAKER_THUMBNAILS = 3;
+    private static final double PHOTO_SIZE = 150;
     
     private static final String FONTS_GILL_SANSTTC = "fonts/GillSans.ttc";
-    private static final String FONTS_GOTHAM_EXLIGHT_WEBFONT_TTF = "fonts/gothamexlight-webfont.ttf";
+    static final String FONTS_GOTHAM_EXLIGHT_WEBFONT_TTF = "fonts/gothamexlight-webfont.ttf";
     private static final String FONTS_Q_TYPE_OT_SEEXT_MEDIUMOTF = "fonts/QTypeOT-SeextMedium.otf";
-    private static final String FONTS_GOTHAMBOOK_WEBFONT_TTF = "fonts/gothambook-webfont.ttf";
+    static final String FONTS_GOTHAMBOOK_WEBFONT_TTF = "fonts/gothambook-webfont.ttf";
     private static final String FONTS_ARIAL = "Arial";
 
+    private static final Map<String, String> LOADED_FONTS = new HashMap<>();
+
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
     
     private final BooleanProperty offline = new SimpleBooleanProperty(false);
     
     private Timeline timeline;
+    private Clock clock = Clock.systemDefaultZone();
+
+    private double displayScale = 1.0;
+    private boolean releasePhotos;
+
+    private VBox renderAheadLayer;
+    private Presentation preparedPreso;
+    private String preparedSummary;
+    private Speaker[] shownSpeakers = new Speaker[0];
+
+    private final ScreenModel screenModel = new ScreenModel();
+    private int layoutRequests;
 
     @FXML
     Label sessionLbl, roomLbl, roomNumber, currentTimeTitleLbl, time,
@@ -79,12 +114,12 @@ public class FXMLDocumentController implements Initializable {
     @FXML Circle networkCircle;
 
     /**
-     * Exit the application
+     * Exit the application, also called by the generated scene code
      *
-     * @param event An associated mouse event
+     * @param event An associated mouse or touch event
      */
     @FXML
-    private void quitApp(MouseEvent event) {
+    void quitApp(InputEvent event) {
         System.exit(0);
     }
 
@@ -96,40 +131,128 @@ public class FXMLDocumentController implements Initializable {
      */
     @Override
     public void initialize(final URL url, final ResourceBundle rb) {
-        ipaddress.setText(getPublicIpAddress());
+        // Resolving the local host name can block, so do it off the FX thread
+        BackgroundExecutor.supply(this::getPublicIpAddress)
+            .thenAccept(ip -> Platform.runLater(() -> ipaddress.setText(ip)));
         networkCircle.visibleProperty().bind(offline);
+
+        bindScreenModel();
         
-        // Load fonts 
-        lightFont = Font.loadFont( Devoxx.class.getResource(FONTS_GOTHAMBOOK_WEBFONT_TTF).toExternalForm(), 20);
-
-        titleThin = Font.loadFont(Devoxx.class.getResource(FONTS_GOTHAM_EXLIGHT_WEBFONT_TTF).toExternalForm(), 40);
-        qTypeBig = Font.loadFont(Devoxx.class.getResource(FONTS_Q_TYPE_OT_SEEXT_MEDIUMOTF).toExternalForm(), 30);
-        qTypeSml = Font.loadFont(Devoxx.class.getResource(FONTS_Q_TYPE_OT_SEEXT_MEDIUMOTF).toExternalForm(), 23);
-        gothambookBig = Font.loadFont(Devoxx.class.getResource(FONTS_GOTHAMBOOK_WEBFONT_TTF).toExternalForm(), 35);
-        gothambookMed = Font.loadFont(Devoxx.class.getResource(FONTS_GOTHAMBOOK_WEBFONT_TTF).toExternalForm(), 28);
-        gothambookSml = Font.loadFont(Devoxx.class.getResource(FONTS_GOTHAMBOOK_WEBFONT_TTF).toExternalForm(), 25);
-        gothambookTiny = Font.loadFont(Devoxx.class.getResource(FONTS_GOTHAMBOOK_WEBFONT_TTF).toExternalForm(), 18);
-        arialSmall = Font.font(FONTS_ARIAL, FontWeight.LIGHT, 18);
+        loadFonts();
         setFonts();        
     }
+
+    /**
+     * Bind the session labels to the view-model, and count the layout
+     * requests the labels make when their text changes.
+     */
+    private void bindScreenModel() {
+        bind(sessionTitle, screenModel.sessionTitleProperty());
+        bind(sessionAbstract, screenModel.sessionAbstractProperty());
+        bind(sessionTime, screenModel.sessionTimeProperty());
+        bind(talk1Title, screenModel.talk1TitleProperty());
+        bind(talk1Time, screenModel.talk1TimeProperty());
+        bind(talk2Title, screenModel.talk2TitleProperty());
+        bind(talk2Speaker, screenModel.talk2SpeakerProperty());
+        bind(talk2Time, screenModel.talk2TimeProperty());
+        bind(talk3Title, screenModel.talk3TitleProperty());
+        bind(talk3Speaker, screenModel.talk3SpeakerProperty());
+        bind(talk3Time, screenModel.talk3TimeProperty());
+    }
+
+    private void bind(final Label label, final ReadOnlyStringProperty text) {
+        label.textProperty().bind(text);
+        label.needsLayoutProperty().addListener((o, wasNeeded, needed) -> {
+            if (needed) {
+                layoutRequests++;
+            }
+        });
+    }
+
+    /**
+     * Load a font file only once, also when there are several screens, the
+     * other sizes use the font registered by the first load.
+     *
+     * @param resource The font file
+     * @param size The font size
+     * @return The font
+     */
+    static Font loadFont(final String resource, final double size) {
+        final String name = LOADED_FONTS.get(resource);
+        if (name != null) {
+            return new Font(name, size);
+        }
+
+        final Font font = Font.loadFont(Devoxx.class.getResource(resource).toExternalForm(), size);
+        if (font != null) {
+            LOADED_FONTS.put(resource, font.getName());
+        }
+        return font;
+    }
+
+    /**
+     * Load the fonts at the size for the display resolution
+     */
+    private void loadFonts() {
+        lightFont = loadFont(FONTS_GOTHAMBOOK_WEBFONT_TTF, scaled(20));
+
+        titleThin = loadFont(FONTS_GOTHAM_EXLIGHT_WEBFONT_TTF, scaled(40));
+        qTypeBig = loadFont(FONTS_Q_TYPE_OT_SEEXT_MEDIUMOTF, scaled(30));
+        qTypeSml = loadFont(FONTS_Q_TYPE_OT_SEEXT_MEDIUMOTF, scaled(23));
+        gothambookBig = loadFont(FONTS_GOTHAMBOOK_WEBFONT_TTF, scaled(35));
+        gothambookMed = loadFont(FONTS_GOTHAMBOOK_WEBFONT_TTF, scaled(28));
+        gothambookSml = loadFont(FONTS_GOTHAMBOOK_WEBFONT_TTF, scaled(25));
+        gothambookTiny = loadFont(FONTS_GOTHAMBOOK_WEBFONT_TTF, scaled(18));
+        arialSmall = Font.font(FONTS_ARIAL, FontWeight.LIGHT, scaled(18));
+    }
+
+    /**
+     * Lay out the screen for a display scale other than the 1920x1080
+     * design size.  Positions, sizes, bitmaps and fonts are all converted to
+     * their final on-screen size, instead of scaling the root node.
+     *
+     * @param scale The display scale
+     */
+    public void setDisplayScale(double scale) {
+        displayScale = scale;
+        DisplayScaler.scale(speakersVBox.getParent(), scale);
+        loadFonts();
+        setFonts();
+    }
+
+    private double scaled(double size) {
+        return size * displayScale;
+    }
     
+    /**
+     * Set the clock the displayed time is taken from
+     *
+     * @param timeSource The clock to use
+     */
+    public void setTimeSource(final Clock timeSource) {
+        clock = timeSource;
+    }
+
     public void setClock(final ControlProperties ctrl) {
-                
+
+        if (timeline != null) {
+            timeline.stop();
+        }
+
         if (ctrl.isTestMode()) {
-            time.setTranslateX(-150);
+            time.setTranslateX(scaled(-150));
             time.setText(ctrl.getTestTime().format(TIME_FORMAT)+ " - TEST");            
-            if (timeline != null) {
-                timeline.stop();
-            }
         } else {
-            time.setTranslateX(0);
-            KeyFrame keyFrame = new KeyFrame(Duration.minutes(1),
-                    t -> time.setText(LocalTime.now().format(TIME_FORMAT)));
-            
-            if (timeline == null) {
-                timeline = new Timeline(keyFrame);
-            }
+            // A replay shows the replay clock, updated at the replay speed
+            final boolean replay = ctrl.isReplayMode();
+            final String suffix = replay ? " - REPLAY" : "";
+            time.setTranslateX(replay ? scaled(-150) : 0);
+
+            KeyFrame keyFrame = new KeyFrame(
+                    replay ? Duration.millis(1000.0 / ctrl.getReplaySpeed()) : Duration.minutes(1),
+                    t -> time.setText(LocalTime.now(clock).format(TIME_FORMAT) + suffix));
             
+            timeline = new Timeline(keyFrame);
             timeline.setCycleCount(Timeline.INDEFINITE);
             timeline.getKeyFrames().get(0).getOnFinished().handle(null);           
             timeline.play();                
@@ -152,11 +275,11 @@ public class FXMLDocumentController implements Initializable {
         talk2Speaker.setFont(arialSmall);
         talk3Title.setFont(gothambookSml);
         talk3Speaker.setFont(arialSmall);
-        sessionLbl.setFont(Font.font(FONTS_ARIAL, FontWeight.BOLD, 83));
-        roomLbl.setFont(Font.font(FONTS_ARIAL, FontWeight.BOLD, 83));
-        roomNumber.setFont(Font.font(FONTS_ARIAL, FontWeight.BOLD, 195));
-        sessionTitle.setFont(Font.font(FONTS_ARIAL, FontWeight.BOLD, 45));
-        time.setFont(Font.font(FONTS_ARIAL, FontWeight.BOLD, 90));
+        sessionLbl.setFont(Font.font(FONTS_ARIAL, FontWeight.BOLD, scaled(83)));
+        roomLbl.setFont(Font.font(FONTS_ARIAL, FontWeight.BOLD, scaled(83)));
+        roomNumber.setFont(Font.font(FONTS_ARIAL, FontWeight.BOLD, scaled(195)));
+        sessionTitle.setFont(Font.font(FONTS_ARIAL, FontWeight.BOLD, scaled(45)));
+        time.setFont(Font.font(FONTS_ARIAL, FontWeight.BOLD, scaled(90)));
     }
     
     public void showDebugMsg(String msg) {
@@ -193,12 +316,12 @@ public class FXMLDocumentController implements Initializable {
                     if(address instanceof Inet4Address) {
                         String ip = address.getHostAddress();
                         if(!ip.equals(localhost))
-                            System.out.println("Public IP :" + (res = ip));
+                            LOGGER.log(Level.INFO, "Public IP: {0}", res = ip);
                     }
                 }
             }
         } catch (UnknownHostException | SocketException e) {
-            System.out.println(e.getCause()); 
+            LOGGER.log(Level.WARNING, "Unable to get the IP address", e);
         }
         return res;
     }
@@ -212,92 +335,270 @@ public class FXMLDocumentController implements Initializable {
      */
     public void setScreenData(Presentation mainPreso,
         Presentation secondPreso, Presentation thirdPreso) {
-        /* Remove current data from the speaker VBox */
-        if (speakersVBox.getChildren() != null) {
-            while (speakersVBox.getChildren().size() > 0) {
-                speakersVBox.getChildren().remove(0);
-            }
+
+        final ScreenDataEvent event = Flight.newScreenDataEvent();
+        if (event != null) {
+            event.begin();
         }
 
-        if (mainPreso != null && mainPreso.title != null) {
-            sessionTitle.setText((mainPreso.title).toUpperCase());
-            sessionAbstract.setText(mainPreso.summary);            
-            sessionTime.setText(mainPreso.fromTime.format(TIME_FORMAT) + " - "
-                + mainPreso.toTime.format(TIME_FORMAT));
-
-            /**
-             * Sort out the speaker photos and names. This has proved to be
-             * incredibly difficult, I know not why. There seems to be some
-             * weirdness with some of the photos so they occupy a bigger space
-             * than they should which screws things up (if we just use a simple
-             * VBox). This still does not work properly (Mark Reinhold is a good
-             * test case)
-             */
-            if (mainPreso.speakers.length == 1) {
-                speakersVBox.setSpacing(0);
-            } else if (mainPreso.speakers.length == 2) {
-                speakersVBox.setSpacing(30);
-            } if (mainPreso.speakers.length == 3) {
-                speakersVBox.setSpacing(20);
-            } else if (mainPreso.speakers.length > MAX_VISIBILE_SPEAKER_THUMBNAILS) {
-                speakersVBox.setSpacing(40);
-            } 
-            
-            for (Speaker speaker : mainPreso.speakers) {
+        layoutRequests = 0;
+        final boolean mainChanged = screenModel.isMainChanged(mainPreso);
+        final boolean prepared = mainPreso != null && mainPreso == preparedPreso;
+        String summary = null;
 
-                VBox speakerBox = new VBox();
-                speakerBox.setSpacing(5);
-                
-                // Only show speaker thumbnail if they can all fit  :) 
-                if (mainPreso.speakers.length <= MAX_VISIBILE_SPEAKER_THUMBNAILS) {
-                    HBox photoBox = new HBox();
-                    photoBox.setAlignment(Pos.CENTER);
-                    photoBox.getChildren().add(speaker.getPhoto());
-                    speakerBox.getChildren().add(photoBox);
+        // The speakers only need to be rebuilt when the current session changed
+        if (mainChanged) {
+            if (releasePhotos) {
+                releaseHiddenPhotos(mainPreso);
+            }
+
+            /* Remove current data from the speaker VBox */
+            if (speakersVBox.getChildren() != null) {
+                while (speakersVBox.getChildren().size() > 0) {
+                    speakersVBox.getChildren().remove(0);
+                }
+            }
+
+            if (mainPreso != null && mainPreso.title != null) {
+                if (prepared) {
+                    summary = preparedSummary;
+                }
+
+                /**
+                 * Sort out the speaker photos and names. This has proved to be
+                 * incredibly difficult, I know not why. There seems to be some
+                 * weirdness with some of the photos so they occupy a bigger space
+                 * than they should which screws things up (if we just use a simple
+                 * VBox). This still does not work properly (Mark Reinhold is a good
+                 * test case)
+                 */
+                if (mainPreso.speakers.length == 1) {
+                    speakersVBox.setSpacing(0);
+                } else if (mainPreso.speakers.length == 2) {
+                    speakersVBox.setSpacing(30);
+                } if (mainPreso.speakers.length == 3) {
+                    speakersVBox.setSpacing(20);
+                } else if (mainPreso.speakers.length > MAX_VISIBILE_SPEAKER_THUMBNAILS) {
+                    speakersVBox.setSpacing(40);
                 } 
                 
-                HBox nameBox = new HBox();
-                nameBox.setAlignment(Pos.CENTER);
-                Label name = new Label(speaker.fullName.toUpperCase());                
-                name.setFont(arialSmall);
-                nameBox.getChildren().add(name);
-                speakerBox.getChildren().add(nameBox);
-
-                speakersVBox.getChildren().add(speakerBox);
+                if (prepared) {
+                    // Swap in the speaker nodes built ahead in the hidden layer
+                    final List<Node> speakerBoxes = new ArrayList<>(renderAheadLayer.getChildren());
+                    renderAheadLayer.getChildren().clear();
+                    speakersVBox.getChildren().setAll(speakerBoxes);
+                    LOGGER.log(Level.FINE, "Swapped in render-ahead screen for {0}", mainPreso.id);
+                    discardPrepared();
+                } else {
+                    speakersVBox.getChildren().setAll(createSpeakerBoxes(mainPreso));
+                }
             }
-            talk1Title.setText(mainPreso.title);
-            talk1Time.setText(mainPreso.fromTime.format(TIME_FORMAT) + " - "
-                + mainPreso.toTime.format(TIME_FORMAT));
-        } else {
-            sessionTitle.setText("");
-            sessionAbstract.setText("");
-            sessionTime.setText("");
-            talk1Title.setText("");
-            talk1Time.setText("");
         }
 
-        if (secondPreso != null) {
+        // Only the texts that changed fire an update of their label
+        final int changedFields = screenModel.update(mainPreso, summary, secondPreso, thirdPreso);
+        LOGGER.log(Level.FINE, "Screen data set: {0} of {1} texts changed, {2} label layout requests",
+                new Object[]{changedFields, ScreenModel.FIELDS, layoutRequests});
+
+        if (event != null) {
+            if (mainPreso != null) {
+                event.session = mainPreso.id;
+                event.speakers = mainPreso.speakers.length;
+            }
+            event.prepared = prepared && mainChanged;
+            event.changedTexts = changedFields;
+            event.layoutRequests = layoutRequests;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Build the name and (round) photo nodes for the speakers of a session
+     */
+    private List<Node> createSpeakerBoxes(Presentation mainPreso) {
+        final List<Node> speakerBoxes = new ArrayList<>();
+
+        for (Speaker speaker : mainPreso.speakers) {
+
+            VBox speakerBox = new VBox();
+            speakerBox.setSpacing(5);
             
-            talk2Speaker.setText(secondPreso.getSpeakerList());
-            talk2Title.setText(secondPreso.title);
-            talk2Time.setText(secondPreso.fromTime.format(TIME_FORMAT) + " - "
-                + secondPreso.toTime.format(TIME_FORMAT));
-        } else {
-            talk2Title.setText("");
-            talk2Speaker.setText("");
-            talk2Time.setText("");
+            // Only show speaker thumbnail if they can all fit  :) 
+            if (mainPreso.speakers.length <= MAX_VISIBILE_SPEAKER_THUMBNAILS) {
+                HBox photoBox = new HBox();
+                photoBox.setAlignment(Pos.CENTER);
+                // Reserve the space, the photo itself is loaded in the background
+                photoBox.setMinHeight(scaled(PHOTO_SIZE));
+                photoBox.getChildren().add(speaker.getPhoto(scaled(PHOTO_SIZE)));
+                speakerBox.getChildren().add(photoBox);
+            } 
+            
+            HBox nameBox = new HBox();
+            nameBox.setAlignment(Pos.CENTER);
+            Label name = new Label(speaker.fullName.toUpperCase());                
+            name.setFont(arialSmall);
+            nameBox.getChildren().add(name);
+            speakerBox.getChildren().add(nameBox);
+
+            speakerBoxes.add(speakerBox);
+        }
+        return speakerBoxes;
+    }
+
+    /**
+     * Render ahead: build the speaker nodes for the next session in a
+     * hidden layer, starting the photo decoding in the background and
+     * applying CSS and layout, and measure the abstract text.  When
+     * setScreenData is called for this session the prepared nodes are
+     * swapped in, so the transition itself is a cheap pulse.
+     *
+     * @param nextPreso The session that will be shown after the next boundary
+     */
+    public void prepareScreenData(Presentation nextPreso) {
+        if (nextPreso == null || nextPreso == preparedPreso) {
+            return;
+        }
+        discardPrepared();
+
+        if (renderAheadLayer == null) {
+            renderAheadLayer = new VBox();
+            renderAheadLayer.setVisible(false);
+            renderAheadLayer.setLayoutX(speakersVBox.getLayoutX());
+            renderAheadLayer.setLayoutY(speakersVBox.getLayoutY());
+            renderAheadLayer.setPrefSize(speakersVBox.getPrefWidth(), speakersVBox.getPrefHeight());
+            renderAheadLayer.setAlignment(speakersVBox.getAlignment());
+            ((Pane) speakersVBox.getParent()).getChildren().add(renderAheadLayer);
+        }
+
+        renderAheadLayer.getChildren().setAll(createSpeakerBoxes(nextPreso));
+        renderAheadLayer.applyCss();
+        renderAheadLayer.layout();
+
+        // Measuring the wrapped abstract warms up the glyph cache for it
+        preparedSummary = nextPreso.getSummary();
+        if (preparedSummary != null) {
+            final Text measure = new Text(preparedSummary);
+            measure.setFont(sessionAbstract.getFont());
+            measure.setWrappingWidth(sessionAbstract.getPrefWidth());
+            measure.getLayoutBounds();
+        }
+
+        preparedPreso = nextPreso;
+        LOGGER.log(Level.FINE, "Prepared render-ahead screen for {0}", nextPreso.id);
+    }
+
+    /**
+     * Get the presentation the render-ahead screen was prepared for
+     *
+     * @return The prepared presentation or null
+     */
+    public Presentation getPreparedPresentation() {
+        return preparedPreso;
+    }
+
+    /**
+     * Stop the clock and drop the speaker nodes, the prepared screen and
+     * the decoded photos shown, for the quiet hours.  The next call of
+     * setScreenData builds the screen again and setClock restarts the clock.
+     */
+    public void suspend() {
+        if (timeline != null) {
+            timeline.stop();
+            timeline = null;
+        }
+
+        discardPrepared();
+        speakersVBox.getChildren().clear();
+        for (Speaker shown : shownSpeakers) {
+            shown.releasePhoto();
+        }
+        shownSpeakers = new Speaker[0];
+        screenModel.reset();
+    }
+
+    private void discardPrepared() {
+        if (renderAheadLayer != null) {
+            renderAheadLayer.getChildren().clear();
+        }
+        preparedPreso = null;
+        preparedSummary = null;
+    }
+
+    /**
+     * Rasterise the static part of the screen (the background shapes and
+     * the banner bitmaps) once into a single image, so the GPU only has to
+     * composite one layer for it on every pulse.  Only the nodes in front of
+     * which nothing dynamic is drawn are merged; labels, the speaker column,
+     * the clickable logo and the debug and network indicators stay live.
+     * The layout is already at the real screen resolution (see
+     * setDisplayScale), so the image is rendered 1:1.
+     */
+    public void flattenBackground() {
+        final Pane root = (Pane) speakersVBox.getParent();
+
+        final List<Node> staticNodes = new ArrayList<>();
+        final List<Node> hidden = new ArrayList<>();
+        for (Node node : root.getChildren()) {
+            if (isStaticNode(node)) {
+                staticNodes.add(node);
+            } else if (node.isVisible()) {
+                node.setVisible(false);
+                hidden.add(node);
+            }
+        }
+
+        final SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        final WritableImage background = root.snapshot(params, null);
+
+        for (Node node : hidden) {
+            node.setVisible(true);
         }
 
-        if (thirdPreso != null) {
-            talk3Speaker.setText(thirdPreso.getSpeakerList());
-            talk3Title.setText(thirdPreso.title);
-            talk3Time.setText(thirdPreso.fromTime.format(TIME_FORMAT) + " - "
-                + thirdPreso.toTime.format(TIME_FORMAT));
-        } else {            
-            talk3Title.setText("");
-            talk3Speaker.setText("");
-            talk3Time.setText("");
+        final ImageView backgroundView = new ImageView(background);
+        backgroundView.setSmooth(false);
+
+        root.getChildren().removeAll(staticNodes);
+        root.getChildren().add(0, backgroundView);
+        LOGGER.log(Level.FINE, "Flattened {0} static nodes into a {1}x{2} background",
+                new Object[]{staticNodes.size(), background.getWidth(), background.getHeight()});
+    }
+
+    private boolean isStaticNode(Node node) {
+        return (node instanceof Shape || node instanceof ImageView)
+            && node != debugBox
+            && node != networkCircle
+            && node.getOnMouseClicked() == null
+            && node.getOnTouchPressed() == null;
+    }
+
+    /**
+     * Release the decoded photos of speakers that are no longer shown
+     * (compact model mode).
+     *
+     * @param release true to release photos that are no longer shown
+     */
+    public void setReleasePhotos(boolean release) {
+        releasePhotos = release;
+    }
+
+    private void releaseHiddenPhotos(Presentation mainPreso) {
+        final Speaker[] nextSpeakers = mainPreso != null ? mainPreso.speakers : new Speaker[0];
+
+        for (Speaker shown : shownSpeakers) {
+            boolean stillShown = false;
+            for (Speaker next : nextSpeakers) {
+                if (next == shown) {
+                    stillShown = true;
+                    break;
+                }
+            }
+
+            if (!stillShown) {
+                shown.releasePhoto();
+            }
         }
+        shownSpeakers = nextSpeakers;
     }
     
     public void setOnline() {
@@ -321,17 +622,17 @@ public class FXMLDocumentController implements Initializable {
          */
         
         if (room.startsWith("BOF")) {
-            roomNumber.setFont(Font.font("Arial", FontWeight.BOLD, 120));
-            roomNumber.setTranslateX(-160);
-            roomNumber.setTranslateY(30);
-            sessionLbl.setTranslateX(-150);
-            roomLbl.setTranslateX(-150);
+            roomNumber.setFont(Font.font("Arial", FontWeight.BOLD, scaled(120)));
+            roomNumber.setTranslateX(scaled(-160));
+            roomNumber.setTranslateY(scaled(30));
+            sessionLbl.setTranslateX(scaled(-150));
+            roomLbl.setTranslateX(scaled(-150));
         } else if (room.equals("10")) {
-            roomNumber.setTranslateX(-70);
-            sessionLbl.setTranslateX(-70);
-            roomLbl.setTranslateX(-70);
+            roomNumber.setTranslateX(scaled(-70));
+            sessionLbl.setTranslateX(scaled(-70));
+            roomLbl.setTranslateX(scaled(-70));
         } else {
-            roomNumber.setFont(Font.font("Arial", FontWeight.BOLD, 195));
+            roomNumber.setFont(Font.font("Arial", FontWeight.BOLD, scaled(195)));
         }
 
         roomNumber.setText(room);
@@ -341,18 +642,18 @@ public class FXMLDocumentController implements Initializable {
             room.equalsIgnoreCase("C") || 
             room.equalsIgnoreCase("D")) {
             sessionLbl.setText("SESSION");
-            sessionLbl.setTranslateX(10);
+            sessionLbl.setTranslateX(scaled(10));
             sessionLbl.setTranslateY(0);
-            sessionLbl.setFont(Font.font("Arial", FontWeight.BOLD, 80));
+            sessionLbl.setFont(Font.font("Arial", FontWeight.BOLD, scaled(80)));
             roomLbl.setText("ROOM");
             roomLbl.setTranslateX(0);
             roomNumber.setTranslateX(0);
         } else if (room.length() > 4) {
             // Shows the "Auditorium" room label for Devoxx UK
             sessionLbl.setText(room);
-            sessionLbl.setTranslateX(-60);
-            sessionLbl.setTranslateY(20);
-            sessionLbl.setFont(Font.font("Arial", FontWeight.BOLD, 120));
+            sessionLbl.setTranslateX(scaled(-60));
+            sessionLbl.setTranslateY(scaled(20));
+            sessionLbl.setFont(Font.font("Arial", FontWeight.BOLD, scaled(120)));
             roomNumber.setText("");
             roomLbl.setText("");
         } 
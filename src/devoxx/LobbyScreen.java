@@ -0,0 +1,216 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import devoxx.model.LobbyIndex;
+import devoxx.model.Presentation;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import javafx.event.EventHandler;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.stage.Screen;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+
+/**
+ * The lobby screen: what is on now and what is next in every room.
+ *
+ * The sessions come from the LobbyIndex, a row is only changed when
+ * another session is on or next in its room, so an update in between
+ * doesn't touch the labels.
+ */
+public final class LobbyScreen {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static final Color BEIGE = new Color(0.937, 0.910, 0.878, 1.0);
+    private static final Color ORANGE = new Color(0.965, 0.682, 0.192, 1.0);
+    private static final Color BLUE = new Color(0.310, 0.714, 0.741, 1.0);
+
+    private static final double ROOM_X = 58;
+    private static final double NOW_X = 330;
+    private static final double NEXT_X = 1120;
+    private static final double COLUMN_WIDTH = 760;
+    private static final double ROWS_Y = 260;
+    private static final double ROWS_HEIGHT = DisplayScaler.DESIGN_HEIGHT - ROWS_Y - 40;
+
+    private final List<String> roomIds;
+    private final Pane root = new Pane();
+    private final Label time;
+    private final Label[] nowTitles;
+    private final Label[] nowTimes;
+    private final Label[] nextTitles;
+    private final Label[] nextTimes;
+    private final Presentation[] shownNow;
+    private final Presentation[] shownNext;
+    private final ScheduleTime scheduleTime = new ScheduleTime();
+
+    private boolean filled;
+    private long shownMinute = Long.MIN_VALUE;
+
+    /**
+     * Constructor, builds the scene
+     *
+     * @param roomIds The rooms to show, from top to bottom
+     * @param roomNames The names of these rooms
+     */
+    public LobbyScreen(final List<String> roomIds, final List<String> roomNames) {
+        this.roomIds = roomIds;
+        final int rows = roomIds.size();
+        nowTitles = new Label[rows];
+        nowTimes = new Label[rows];
+        nextTitles = new Label[rows];
+        nextTimes = new Label[rows];
+        shownNow = new Presentation[rows];
+        shownNext = new Presentation[rows];
+
+        final Font titleFont = FXMLDocumentController.loadFont(
+                FXMLDocumentController.FONTS_GOTHAM_EXLIGHT_WEBFONT_TTF, 83);
+        final Font headerFont = FXMLDocumentController.loadFont(
+                FXMLDocumentController.FONTS_GOTHAMBOOK_WEBFONT_TTF, 40);
+
+        root.setPrefSize(DisplayScaler.DESIGN_WIDTH, DisplayScaler.DESIGN_HEIGHT);
+        root.getChildren().add(new Rectangle(DisplayScaler.DESIGN_WIDTH, DisplayScaler.DESIGN_HEIGHT, Color.BLACK));
+        root.getChildren().add(label("NOW AND NEXT", titleFont, BEIGE, ROOM_X, 40, 1400));
+        time = label("", titleFont, BEIGE, 1500, 40, 360);
+        root.getChildren().add(time);
+        root.getChildren().add(label("NOW", headerFont, ORANGE, NOW_X, ROWS_Y - 60, COLUMN_WIDTH));
+        root.getChildren().add(label("NEXT", headerFont, ORANGE, NEXT_X, ROWS_Y - 60, COLUMN_WIDTH));
+
+        // Fit all rooms on the screen, with smaller text for many rooms
+        final double rowHeight = rows == 0 ? ROWS_HEIGHT : ROWS_HEIGHT / rows;
+        final double titleSize = Math.min(35, rowHeight * 0.4);
+        final double timeSize = Math.min(25, rowHeight * 0.28);
+        final Font roomFont = FXMLDocumentController.loadFont(
+                FXMLDocumentController.FONTS_GOTHAMBOOK_WEBFONT_TTF, Math.min(45, rowHeight * 0.5));
+        final Font sessionFont = FXMLDocumentController.loadFont(
+                FXMLDocumentController.FONTS_GOTHAMBOOK_WEBFONT_TTF, titleSize);
+        final Font timeFont = FXMLDocumentController.loadFont(
+                FXMLDocumentController.FONTS_GOTHAMBOOK_WEBFONT_TTF, timeSize);
+
+        for (int i = 0; i < rows; i++) {
+            final double y = ROWS_Y + i * rowHeight;
+            final Line separator = new Line(ROOM_X, y, DisplayScaler.DESIGN_WIDTH - ROOM_X, y);
+            separator.setStroke(BEIGE);
+            root.getChildren().add(separator);
+            root.getChildren().add(label(roomNames.get(i), roomFont, ORANGE, ROOM_X, y + 8, NOW_X - ROOM_X));
+
+            nowTitles[i] = label("", sessionFont, BEIGE, NOW_X, y + 8, COLUMN_WIDTH);
+            nowTimes[i] = label("", timeFont, BLUE, NOW_X, y + 12 + titleSize * 1.2, COLUMN_WIDTH);
+            nextTitles[i] = label("", sessionFont, BEIGE, NEXT_X, y + 8, COLUMN_WIDTH);
+            nextTimes[i] = label("", timeFont, BLUE, NEXT_X, y + 12 + titleSize * 1.2, COLUMN_WIDTH);
+            root.getChildren().addAll(nowTitles[i], nowTimes[i], nextTitles[i], nextTimes[i]);
+        }
+    }
+
+    private static Label label(final String text, final Font font, final Color color,
+                               final double x, final double y, final double width) {
+        final Label label = new Label(text);
+        label.setFont(font);
+        label.setTextFill(color);
+        label.setLayoutX(x);
+        label.setLayoutY(y);
+        label.setPrefWidth(width);
+        label.setMaxWidth(width);
+        return label;
+    }
+
+    /**
+     * Show the lobby full screen on the given display
+     *
+     * @param stage The stage to show the scene in
+     * @param display The display to show the stage on
+     * @param controlProperties The configuration
+     * @param keyHandler Handles the keys pressed on the lobby screen
+     */
+    public void show(final Stage stage,
+                     final Screen display,
+                     final ControlProperties controlProperties,
+                     final EventHandler<KeyEvent> keyHandler) {
+        final double displayScale = DisplayScaler.detectScale(controlProperties, display);
+        if (displayScale != 1.0) {
+            DisplayScaler.scale(root, displayScale);
+        }
+
+        final Scene scene = new Scene(root);
+        scene.setOnKeyPressed(keyHandler);
+        scene.setFill(null);
+
+        final Rectangle2D bounds = display.getBounds();
+        stage.initStyle(StageStyle.UNDECORATED);
+        stage.setX(bounds.getMinX());
+        stage.setY(bounds.getMinY());
+        stage.setScene(scene);
+        stage.show();
+    }
+
+    public Parent getRoot() {
+        return root;
+    }
+
+    /**
+     * Set the clock used for the current time outside of test mode
+     *
+     * @param timeSource The clock to use
+     */
+    public void setTimeSource(final Clock timeSource) {
+        scheduleTime.setClock(timeSource);
+    }
+
+    /**
+     * Show the current and next session of every room
+     *
+     * @param index The sessions of all rooms
+     * @param controlProperties The current configuration
+     * @return The number of rows that changed
+     */
+    public int update(final LobbyIndex index, final ControlProperties controlProperties) {
+        final long now = scheduleTime.now(controlProperties);
+
+        if (now / 60 != shownMinute) {
+            shownMinute = now / 60;
+            time.setText(LocalDateTime.ofEpochSecond(now, 0, Presentation.ZONE).format(TIME_FORMAT));
+        }
+
+        int changed = 0;
+        for (int i = 0; i < roomIds.size(); i++) {
+            final Presentation current = index.current(roomIds.get(i), now);
+            final Presentation next = index.next(roomIds.get(i), now);
+
+            if (!filled || current != shownNow[i] || next != shownNext[i]) {
+                shownNow[i] = current;
+                shownNext[i] = next;
+                show(current, nowTitles[i], nowTimes[i]);
+                show(next, nextTitles[i], nextTimes[i]);
+                changed++;
+            }
+        }
+        filled = true;
+        return changed;
+    }
+
+    private static void show(final Presentation presentation, final Label title, final Label time) {
+        if (presentation == null) {
+            title.setText("");
+            time.setText("");
+        } else {
+            title.setText(presentation.title);
+            final String speakers = presentation.getSpeakerList();
+            time.setText(presentation.getFromTime().format(TIME_FORMAT) + " - "
+                    + presentation.getToTime().format(TIME_FORMAT)
+                    + (speakers == null || speakers.isEmpty() ? "" : "   " + speakers));
+        }
+    }
+}
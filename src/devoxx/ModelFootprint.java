@@ -0,0 +1,130 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import devoxx.model.Presentation;
+import devoxx.model.ScheduleSnapshot;
+import devoxx.model.Speaker;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import javafx.scene.image.Image;
+
+/**
+ * Heap footprint report for the schedule model, used to compare the
+ * STANDARD and COMPACT model modes on the same data.
+ *
+ * The sizes are estimates for the 32-bit ARM JVM on the Pi (8 byte object
+ * header, 4 byte references, 8 byte alignment).  Objects are counted once,
+ * so strings shared through the string pool only show up once.
+ */
+public final class ModelFootprint {
+
+    private static final int HEADER = 8;
+    private static final int ARRAY_HEADER = 12;
+    private static final int REFERENCE = 4;
+
+    private static final int STRING_SHALLOW = align(HEADER + REFERENCE + 4);
+    private static final int DATE_TIME = 3 * align(HEADER + 8);
+    private static final int PRESENTATION_SHALLOW = align(HEADER + 10 * REFERENCE + 2 * 8 + 4);
+    private static final int SPEAKER_SHALLOW = align(HEADER + 5 * REFERENCE);
+
+    private final Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private int strings;
+    private long stringBytes;
+    private long timeBytes;
+    private long summaryBytes;
+    private long objectBytes;
+    private int photos;
+    private long photoBytes;
+
+    private ModelFootprint() {
+    }
+
+    /**
+     * Create the footprint report for the given schedule.
+     *
+     * @param snapshot The schedule to measure
+     * @param compact Whether the compact model mode is in use
+     * @return A one line report
+     */
+    public static String report(final ScheduleSnapshot snapshot, final boolean compact) {
+        final ModelFootprint footprint = new ModelFootprint();
+        footprint.measure(snapshot);
+
+        final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        final long total = footprint.stringBytes + footprint.timeBytes
+            + footprint.summaryBytes + footprint.objectBytes;
+
+        return String.format("Model footprint [%s]: %d presentations, %d speakers, "
+            + "%d strings = %d KB, times = %d KB, summaries = %d KB, objects = %d KB, "
+            + "model total = %d KB; %d decoded photos = %d KB; heap used %d MB of %d MB",
+            compact ? "COMPACT" : "STANDARD",
+            snapshot.presentations.size(), snapshot.speakers.size(),
+            footprint.strings, footprint.stringBytes / 1024,
+            footprint.timeBytes / 1024, footprint.summaryBytes / 1024,
+            footprint.objectBytes / 1024, total / 1024,
+            footprint.photos, footprint.photoBytes / 1024,
+            heap.getUsed() / (1024 * 1024), heap.getMax() / (1024 * 1024));
+    }
+
+    private void measure(final ScheduleSnapshot snapshot) {
+        for (Presentation presentation : snapshot.presentations) {
+            objectBytes += PRESENTATION_SHALLOW;
+            objectBytes += align(ARRAY_HEADER + REFERENCE * presentation.speakers.length);
+
+            string(presentation.id);
+            string(presentation.title);
+            string(presentation.room);
+            string(presentation.track);
+            string(presentation.type);
+
+            if (presentation.fromTime != null) {
+                timeBytes += 2 * DATE_TIME;
+            }
+
+            if (presentation.summary != null) {
+                final long before = stringBytes;
+                string(presentation.summary);
+                summaryBytes += stringBytes - before;
+                stringBytes = before;
+            }
+            summaryBytes += align(ARRAY_HEADER + presentation.getCompressedSummarySize());
+
+            for (Speaker speaker : presentation.speakers) {
+                speaker(speaker);
+            }
+        }
+    }
+
+    private void speaker(final Speaker speaker) {
+        if (!seen.add(speaker)) {
+            return;
+        }
+
+        objectBytes += SPEAKER_SHALLOW;
+        string(speaker.uuid);
+        string(speaker.fullName);
+        string(speaker.downloadURL);
+
+        for (Image image : speaker.getDecodedPhotos()) {
+            photos++;
+            photoBytes += (long) image.getWidth() * (long) image.getHeight() * 4;
+        }
+    }
+
+    private void string(final String value) {
+        if (value != null && seen.add(value)) {
+            strings++;
+            stringBytes += STRING_SHALLOW + align(ARRAY_HEADER + 2 * value.length());
+        }
+    }
+
+    private static int align(final int size) {
+        return (size + 7) & ~7;
+    }
+}
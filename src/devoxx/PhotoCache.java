@@ -0,0 +1,458 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Indexed, size capped cache of speaker photos.
+ *
+ * The index (manifest.json in the cache directory) is loaded once and kept
+ * in memory, so checking for a photo never touches the disk.  Photos are
+ * stored by the SHA-256 hash of their content, which doubles as checksum
+ * when a photo is read back.  A photo is downloaded to a .part file and
+ * only renamed and added to the index once it is complete, so a partially
+ * written photo is never served.  The least recently used photos are
+ * evicted when the cache grows beyond image-cache-size.
+ *
+ * Changes to the index are written in one go by saveAll, once per data
+ * refresh and when the application exits, so filling a cold cache or
+ * revalidating every photo doesn't rewrite it for every photo.
+ */
+public class PhotoCache {
+
+    private final static Logger LOGGER = Logger.getLogger(PhotoCache.class.getName());
+
+    private static final String MANIFEST_JSON = "manifest.json";
+    private static final String PHOTO_SUFFIX = ".dat";
+    private static final String PART_SUFFIX = ".part";
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.11 (KHTML, like Gecko) Chrome/23.0.1271.95 Safari/537.11";
+
+    private static final long REVALIDATE_AFTER = 24 * 60 * 60 * 1000L;
+
+    private static final ConcurrentMap<String, PhotoCache> CACHES = new ConcurrentHashMap<>();
+
+    private static volatile long maxBytes = 64 * 1024 * 1024L;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(PhotoCache::saveAll, "devoxx-photo-index"));
+    }
+
+    private final File directory;
+
+    /* Access ordered, so iteration starts with the least recently used photo */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    /* The index changed since it was saved */
+    private boolean dirty;
+
+    /* The speakers whose photo is being revalidated, only one check each */
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Index entry for the photo of one speaker
+     */
+    private static final class Entry {
+
+        final String hash;
+        final long size;
+        final String url;
+        final String etag;
+        final long lastModified;
+        long validated;
+
+        Entry(final String hash, final long size, final String url,
+              final String etag, final long lastModified, final long validated) {
+            this.hash = hash;
+            this.size = size;
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.validated = validated;
+        }
+    }
+
+    /**
+     * Get the photo cache for the given directory, loading its index on
+     * first use.
+     *
+     * @param directory The cache directory
+     * @return The photo cache
+     */
+    public static PhotoCache get(final String directory) {
+        return CACHES.computeIfAbsent(directory, d -> new PhotoCache(new File(d)));
+    }
+
+    /**
+     * Write the index of every cache that changed since it was saved
+     */
+    public static void saveAll() {
+        for (PhotoCache photoCache : CACHES.values()) {
+            photoCache.save();
+        }
+    }
+
+    /**
+     * Set the maximum size of the photos kept in a cache
+     *
+     * @param bytes The size cap in bytes
+     */
+    public static void setMaxBytes(final long bytes) {
+        maxBytes = bytes;
+    }
+
+    private PhotoCache(final File directory) {
+        this.directory = directory;
+        loadManifest();
+    }
+
+    /**
+     * Make sure the photo for a speaker is in the cache, downloading it when
+     * it's missing or the speaker's photo URL changed.  A photo that has not
+     * been validated for a day is revalidated in the background.
+     *
+     * @param uuid The speaker uuid
+     * @param url The photo URL
+     * @return true when the photo was already cached
+     */
+    public boolean fetch(final String uuid, final String url) {
+        final Entry entry;
+        synchronized (this) {
+            entry = entries.get(uuid);
+        }
+
+        if (entry != null && entry.url.equals(url)) {
+            if (System.currentTimeMillis() - entry.validated > REVALIDATE_AFTER
+                    && revalidating.add(uuid)) {
+                BackgroundExecutor.execute(() -> {
+                    try {
+                        revalidate(uuid, url);
+                    } finally {
+                        revalidating.remove(uuid);
+                    }
+                });
+            }
+            return true;
+        }
+
+        download(uuid, url, null);
+        return false;
+    }
+
+    /**
+     * Read a cached photo, verifying its checksum.
+     *
+     * @param uuid The speaker uuid
+     * @param url The photo URL the cached photo must come from
+     * @return The photo data or null when not (correctly) cached
+     */
+    public byte[] read(final String uuid, final String url) {
+        BackgroundExecutor.checkNotFxThread("read cached photo " + uuid);
+
+        final Entry entry;
+        synchronized (this) {
+            entry = entries.get(uuid);
+        }
+
+        if (entry == null || !entry.url.equals(url)) {
+            return null;
+        }
+
+        try {
+            final byte[] data = Files.readAllBytes(photoFile(entry.hash).toPath());
+            if (entry.hash.equals(hash(data))) {
+                return data;
+            }
+            LOGGER.log(Level.WARNING, "Checksum mismatch for cached photo {0}", uuid);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Unable to read cached photo " + uuid, ex);
+        }
+
+        remove(uuid, entry);
+        return null;
+    }
+
+    /**
+     * Revalidate the cached photo of a speaker: check the stored file and
+     * ask the server whether the photo changed (conditional GET).
+     *
+     * @param uuid The speaker uuid
+     * @param url The photo URL
+     * @return true when the cached photo changed
+     */
+    public boolean revalidate(final String uuid, final String url) {
+        final Entry entry;
+        synchronized (this) {
+            entry = entries.get(uuid);
+        }
+
+        if (entry != null && entry.url.equals(url) && read(uuid, url) != null) {
+            return download(uuid, url, entry);
+        }
+
+        return download(uuid, url, null);
+    }
+
+    /**
+     * Download a photo into the cache.
+     *
+     * @return true when the content of the cache changed
+     */
+    private boolean download(final String uuid, final String url, final Entry current) {
+        BackgroundExecutor.checkNotFxThread("download photo " + url);
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            LOGGER.log(Level.WARNING, "Unable to create photo cache {0}", directory);
+            return false;
+        }
+
+        File partFile = null;
+        try {
+            final URLConnection connection = new URL(url).openConnection();
+            connection.setRequestProperty("User-Agent", USER_AGENT);
+
+            if (current != null) {
+                if (current.etag != null) {
+                    connection.setRequestProperty("If-None-Match", current.etag);
+                }
+                if (current.lastModified > 0) {
+                    connection.setIfModifiedSince(current.lastModified);
+                }
+            }
+
+            if (connection instanceof HttpURLConnection
+                    && ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                LOGGER.log(Level.FINER, "Cached photo for {0} is still valid", uuid);
+                synchronized (this) {
+                    current.validated = System.currentTimeMillis();
+
+                    // Otherwise it is checked again after every restart
+                    dirty = true;
+                }
+                return false;
+            }
+
+            final MessageDigest digest = newDigest();
+            partFile = File.createTempFile(uuid, PART_SUFFIX, directory);
+            long size = 0;
+
+            try (InputStream in = connection.getInputStream();
+                 OutputStream out = new FileOutputStream(partFile)) {
+                byte[] buf = new byte[10240];
+                int byteCount;
+
+                while ((byteCount = in.read(buf)) > 0) {
+                    out.write(buf, 0, byteCount);
+                    digest.update(buf, 0, byteCount);
+                    size += byteCount;
+                }
+            }
+
+            final String hash = toHex(digest.digest());
+            final File photoFile = photoFile(hash);
+            if (photoFile.exists()) {
+                Files.delete(partFile.toPath());
+            } else {
+                Files.move(partFile.toPath(), photoFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+            WorkingFiles.countWritten(size);
+
+            put(uuid, new Entry(hash, size, url, connection.getHeaderField("ETag"),
+                    connection.getLastModified(), System.currentTimeMillis()));
+            LOGGER.log(Level.FINE, "Cached photo for {0}", uuid);
+            return current == null || !current.hash.equals(hash);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Unable to read photo for " + uuid + " from " + url, ex);
+            if (partFile != null) {
+                partFile.delete();
+            }
+            return false;
+        }
+    }
+
+    private synchronized void put(final String uuid, final Entry entry) {
+        final Entry old = entries.put(uuid, entry);
+        totalBytes += entry.size;
+        if (old != null) {
+            totalBytes -= old.size;
+            deleteIfUnused(old.hash);
+        }
+
+        evict();
+        dirty = true;
+    }
+
+    private synchronized void remove(final String uuid, final Entry entry) {
+        if (entries.remove(uuid, entry)) {
+            totalBytes -= entry.size;
+            deleteIfUnused(entry.hash);
+            dirty = true;
+        }
+    }
+
+    /**
+     * Remove the least recently used photos until the cache fits its cap.
+     */
+    private synchronized void evict() {
+        final Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && entries.size() > 1 && it.hasNext()) {
+            final Entry eldest = it.next().getValue();
+            it.remove();
+            totalBytes -= eldest.size;
+            deleteIfUnused(eldest.hash);
+            LOGGER.log(Level.FINER, "Evicted cached photo {0}", eldest.hash);
+        }
+    }
+
+    private synchronized void deleteIfUnused(final String hash) {
+        for (Entry entry : entries.values()) {
+            if (entry.hash.equals(hash)) {
+                return;
+            }
+        }
+        photoFile(hash).delete();
+    }
+
+    private File photoFile(final String hash) {
+        return new File(directory, hash + PHOTO_SUFFIX);
+    }
+
+    private synchronized void loadManifest() {
+        final File manifest = new File(directory, MANIFEST_JSON);
+
+        if (manifest.exists()) {
+            try (Reader reader = new InputStreamReader(new FileInputStream(manifest), StandardCharsets.UTF_8)) {
+                for (JsonElement element : new JsonParser().parse(reader).getAsJsonArray()) {
+                    final JsonObject obj = element.getAsJsonObject();
+                    final Entry entry = new Entry(obj.get("hash").getAsString(),
+                            obj.get("size").getAsLong(),
+                            obj.get("url").getAsString(),
+                            obj.has("etag") ? obj.get("etag").getAsString() : null,
+                            obj.get("lastModified").getAsLong(),
+                            obj.get("validated").getAsLong());
+
+                    // Only keep entries whose photo is (completely) there
+                    if (photoFile(entry.hash).length() == entry.size) {
+                        entries.put(obj.get("uuid").getAsString(), entry);
+                        totalBytes += entry.size;
+                    }
+                }
+            } catch (IOException | RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Ignoring unreadable photo cache index " + manifest, ex);
+                entries.clear();
+                totalBytes = 0;
+            }
+        }
+
+        // Remove partial downloads and photos that are not in the index
+        final Set<String> indexed = new HashSet<>();
+        for (Entry entry : entries.values()) {
+            indexed.add(entry.hash + PHOTO_SUFFIX);
+        }
+
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                final String name = file.getName();
+                if (name.endsWith(PART_SUFFIX)
+                        || (name.endsWith(PHOTO_SUFFIX) && !indexed.contains(name))) {
+                    file.delete();
+                }
+            }
+        }
+
+        LOGGER.log(Level.FINE, "Photo cache {0} has {1} photos, {2} bytes",
+                new Object[]{directory, entries.size(), totalBytes});
+    }
+
+    private synchronized void save() {
+        if (dirty) {
+            dirty = false;
+            saveManifest();
+        }
+    }
+
+    private synchronized void saveManifest() {
+        final JsonArray array = new JsonArray();
+        for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+            final Entry entry = mapEntry.getValue();
+            final JsonObject obj = new JsonObject();
+            obj.addProperty("uuid", mapEntry.getKey());
+            obj.addProperty("hash", entry.hash);
+            obj.addProperty("size", entry.size);
+            obj.addProperty("url", entry.url);
+            if (entry.etag != null) {
+                obj.addProperty("etag", entry.etag);
+            }
+            obj.addProperty("lastModified", entry.lastModified);
+            obj.addProperty("validated", entry.validated);
+            array.add(obj);
+        }
+
+        final File manifest = new File(directory, MANIFEST_JSON);
+        final File tempFile = new File(directory, MANIFEST_JSON + ".tmp");
+        try {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+                writer.write(array.toString());
+            }
+            Files.move(tempFile.toPath(), manifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            WorkingFiles.countWritten(manifest.length());
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Unable to save photo cache index", ex);
+            dirty = true;
+        }
+    }
+
+    private static String hash(final byte[] data) {
+        return toHex(newDigest().digest(data));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.animation.AnimationTimer;
+import javafx.animation.PauseTransition;
+import javafx.util.Duration;
+
+/**
+ * Measures the time between JavaFX pulses for a while and logs the result.
+ *
+ * A running AnimationTimer requests a pulse for every frame, so the interval
+ * between two pulses is the time needed to lay out and render the scene (or
+ * the vsync period when that is faster).  Only runs on request, as keeping
+ * the pulses going costs CPU on the Pi.
+ */
+public final class PulseMonitor extends AnimationTimer {
+
+    private final static Logger LOGGER = Logger.getLogger(PulseMonitor.class.getName());
+
+    private static PulseMonitor running;
+
+    private final String label;
+    private long last;
+    private long pulses;
+    private long total;
+    private long max;
+
+    private PulseMonitor(final String label) {
+        this.label = label;
+    }
+
+    /**
+     * Measure the pulse times for the given number of seconds.  Must be
+     * called on the FX application thread.
+     *
+     * @param label Label for the measurement in the log
+     * @param seconds How long to measure
+     */
+    public static void measure(final String label, final int seconds) {
+        if (running != null) {
+            return;
+        }
+
+        running = new PulseMonitor(label);
+        running.start();
+
+        final PauseTransition stop = new PauseTransition(Duration.seconds(seconds));
+        stop.setOnFinished(e -> {
+            running.stop();
+            running.log();
+            running = null;
+        });
+        stop.play();
+    }
+
+    @Override
+    public void handle(final long now) {
+        if (last != 0) {
+            final long interval = now - last;
+            total += interval;
+            max = Math.max(max, interval);
+            pulses++;
+        }
+        last = now;
+    }
+
+    private void log() {
+        if (pulses == 0) {
+            return;
+        }
+        LOGGER.log(Level.INFO, "Pulse times [{0}]: {1} pulses, avg {2} ms, max {3} ms",
+                new Object[]{label, pulses,
+                    String.format("%.2f", total / (double) pulses / 1_000_000),
+                    String.format("%.2f", max / 1_000_000.0)});
+    }
+}
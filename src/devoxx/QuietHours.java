@@ -0,0 +1,132 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import devoxx.model.Presentation;
+import devoxx.model.ScheduleSnapshot;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import javafx.geometry.Pos;
+import javafx.scene.Parent;
+import javafx.scene.control.Label;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+
+/**
+ * The quiet hours of the screens, decided by the schedule: from a quarter
+ * of an hour after the last session of a day until quiet-warmup-time
+ * minutes before the first session of the next day, and after the last
+ * session of the conference.  A break between two sessions of more than
+ * three hours counts as a night, so lunch is not quiet.
+ *
+ * During the quiet hours the screens show a static screen instead of the
+ * schedule, the timelines are stopped and the decoded photos released.
+ */
+public final class QuietHours {
+
+    private static final long GRACE = 15 * 60L;
+    private static final long NIGHT = 3 * 60 * 60L;
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final ScheduleTime time = new ScheduleTime();
+    private long nextSession;
+
+    /**
+     * Set the clock used for the current time
+     *
+     * @param timeSource The clock to use
+     */
+    public void setClock(final Clock timeSource) {
+        time.setClock(timeSource);
+    }
+
+    /**
+     * Whether there are quiet hours at all, the test and replay time is
+     * moved by hand or by the replay
+     *
+     * @param controlProperties The current configuration
+     * @return True when quiet-hours is on in real mode
+     */
+    public static boolean isEnabled(final ControlProperties controlProperties) {
+        return controlProperties.isQuietHours()
+                && !controlProperties.isTestMode() && !controlProperties.isReplayMode();
+    }
+
+    /**
+     * Get how long the quiet hours last from now
+     *
+     * @param controlProperties The current configuration
+     * @param schedules The schedules shown
+     * @return Time (in seconds) until the screens have to warm up, 0 when
+     * this is not a quiet hour and -1 when there are no more sessions
+     */
+    public long quietFor(final ControlProperties controlProperties,
+                         final List<ScheduleSnapshot> schedules) {
+        nextSession = 0;
+        if (!isEnabled(controlProperties)) {
+            return 0;
+        }
+
+        final long now = time.now(controlProperties);
+        long lastEnd = Long.MIN_VALUE;
+        long nextStart = Long.MAX_VALUE;
+        boolean empty = true;
+
+        for (int s = 0; s < schedules.size(); s++) {
+            final List<Presentation> presentations = schedules.get(s).presentations;
+            empty &= presentations.isEmpty();
+            for (int i = 0; i < presentations.size(); i++) {
+                final Presentation presentation = presentations.get(i);
+                if (presentation.fromEpochSecond > now) {
+                    nextStart = Math.min(nextStart, presentation.fromEpochSecond);
+                } else if (presentation.toEpochSecond > now) {
+                    // A session is going on
+                    return 0;
+                } else {
+                    lastEnd = Math.max(lastEnd, presentation.toEpochSecond);
+                }
+            }
+        }
+
+        // Without a schedule there is nothing to decide on
+        if (empty || (lastEnd != Long.MIN_VALUE && now - lastEnd < GRACE)) {
+            return 0;
+        }
+
+        if (nextStart == Long.MAX_VALUE) {
+            return -1;
+        }
+
+        final long warmUp = nextStart - controlProperties.getQuietWarmupTime() * 60L;
+        final boolean night = lastEnd == Long.MIN_VALUE || nextStart - lastEnd > NIGHT;
+        if (!night || now >= warmUp) {
+            return 0;
+        }
+
+        nextSession = nextStart;
+        return warmUp - now;
+    }
+
+    /**
+     * Create the static screen shown during the quiet hours
+     *
+     * @return The screen, telling when the next session starts if known
+     */
+    public Parent createScreen() {
+        final Label message = new Label(nextSession == 0 ? "DEVOXX"
+                : "Next session at " + LocalDateTime.ofEpochSecond(nextSession, 0, Presentation.ZONE)
+                        .format(TIME_FORMAT));
+        message.setFont(FXMLDocumentController.loadFont(
+                FXMLDocumentController.FONTS_GOTHAMBOOK_WEBFONT_TTF, 40));
+        message.setTextFill(Color.gray(0.4));
+
+        final StackPane screen = new StackPane(message);
+        screen.setAlignment(Pos.CENTER);
+        screen.setStyle("-fx-background-color: black;");
+        return screen;
+    }
+}
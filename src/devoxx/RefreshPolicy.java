@@ -0,0 +1,133 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import devoxx.model.Presentation;
+import devoxx.model.ScheduleSnapshot;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * When to refresh the session data next.
+ *
+ * With a fixed data-refresh-time the server is polled just as often at
+ * 3 a.m. as in the minutes before a session starts.  The adaptive policy
+ * polls every data-refresh-busy-time minutes in the quarter of an hour
+ * before a session starts or ends, when a last minute change matters, and
+ * otherwise every data-refresh-time minutes but never past the start of
+ * that quarter.  When the next boundary is further away than
+ * data-refresh-idle-time (overnight) or the conference is over it polls
+ * every data-refresh-idle-time minutes.
+ */
+public final class RefreshPolicy {
+
+    private final static Logger LOGGER = Logger.getLogger(RefreshPolicy.class.getName());
+
+    private static final long BUSY_WINDOW = 15 * 60L;
+    private static final long MIN_DELAY = 60L;
+    private static final long DAY_SECONDS = 24 * 60 * 60L;
+
+    private final ScheduleTime time = new ScheduleTime();
+    private long refreshDay = Long.MIN_VALUE;
+    private int refreshes;
+
+    /**
+     * Set the clock used for the current time
+     *
+     * @param timeSource The clock to use
+     */
+    public void setClock(final Clock timeSource) {
+        time.setClock(timeSource);
+    }
+
+    /**
+     * Get the time until the next data refresh
+     *
+     * @param controlProperties The current configuration
+     * @param schedules The schedules shown
+     * @return Time (in seconds) until the next refresh
+     */
+    public long nextDelay(final ControlProperties controlProperties,
+                          final List<ScheduleSnapshot> schedules) {
+        final long normal = controlProperties.getDataRefreshTime() * 60L;
+
+        // The test time doesn't move, so there is no calendar to follow
+        if (!controlProperties.isDataRefreshAdaptive() || controlProperties.isTestMode()) {
+            return normal;
+        }
+
+        final long now = time.now(controlProperties);
+        final long busy = Math.max(MIN_DELAY, controlProperties.getDataRefreshBusyTime() * 60L);
+        final long idle = Math.max(normal, controlProperties.getDataRefreshIdleTime() * 60L);
+
+        final long delay = delay(controlProperties, schedules, now, normal, busy, idle);
+
+        countRefreshes(now);
+        LOGGER.log(Level.FINE, "Next data refresh in {0}s", delay);
+        return delay;
+    }
+
+    private static long delay(final ControlProperties controlProperties,
+                              final List<ScheduleSnapshot> schedules,
+                              final long now, final long normal, final long busy, final long idle) {
+        final int conferenceDays = controlProperties.getConferenceDays();
+        if (conferenceDays > 0) {
+            final long start = controlProperties.getStartDate().atStartOfDay().toEpochSecond(Presentation.ZONE);
+            final long end = start + conferenceDays * DAY_SECONDS;
+            if (now >= end) {
+                return idle;
+            }
+            if (now < start) {
+                return Math.max(MIN_DELAY, Math.min(idle, start - now));
+            }
+        }
+
+        boolean empty = true;
+        long boundary = Long.MAX_VALUE;
+        for (ScheduleSnapshot schedule : schedules) {
+            final List<Presentation> presentations = schedule.presentations;
+            empty &= presentations.isEmpty();
+            for (int i = 0; i < presentations.size(); i++) {
+                final Presentation presentation = presentations.get(i);
+                if (presentation.fromEpochSecond > now) {
+                    boundary = Math.min(boundary, presentation.fromEpochSecond);
+                } else if (presentation.toEpochSecond > now) {
+                    boundary = Math.min(boundary, presentation.toEpochSecond);
+                }
+            }
+        }
+
+        // Without data keep trying, after the last session there is nothing to miss
+        if (boundary == Long.MAX_VALUE) {
+            return empty ? normal : idle;
+        }
+
+        final long untilBusy = boundary - BUSY_WINDOW - now;
+        if (untilBusy <= 0) {
+            return busy;
+        }
+        return Math.max(MIN_DELAY, Math.min(untilBusy, untilBusy > idle ? idle : normal));
+    }
+
+    /**
+     * Log the number of data refreshes once a day
+     *
+     * @param now The current time
+     */
+    private void countRefreshes(final long now) {
+        final long day = Math.floorDiv(now + Presentation.ZONE.getTotalSeconds(), DAY_SECONDS);
+        if (day != refreshDay) {
+            if (refreshDay != Long.MIN_VALUE) {
+                LOGGER.log(Level.INFO, "{0} data refreshes on {1}",
+                        new Object[]{refreshes, LocalDate.ofEpochDay(refreshDay)});
+            }
+            refreshDay = day;
+            refreshes = 0;
+        }
+        refreshes++;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * A clock that only moves when it is told to, used to replay the
+ * conference at any speed.
+ */
+public final class ReplayClock extends Clock {
+
+    private final ZoneId zone;
+    private volatile long epochSecond;
+
+    /**
+     * Constructor
+     *
+     * @param zone The time zone of the clock
+     * @param epochSecond The initial time
+     */
+    public ReplayClock(final ZoneId zone, final long epochSecond) {
+        this.zone = zone;
+        this.epochSecond = epochSecond;
+    }
+
+    /**
+     * Move the clock forward
+     *
+     * @param seconds The number of seconds to move
+     */
+    public void advance(final long seconds) {
+        epochSecond += seconds;
+    }
+
+    /**
+     * Set the clock
+     *
+     * @param epochSecond The new time
+     */
+    public void set(final long epochSecond) {
+        this.epochSecond = epochSecond;
+    }
+
+    /**
+     * Get the time without creating an Instant
+     *
+     * @return The current time of the clock
+     */
+    public long epochSecond() {
+        return epochSecond;
+    }
+
+    @Override
+    public long millis() {
+        return epochSecond * 1000;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(final ZoneId newZone) {
+        return new ReplayClock(newZone, epochSecond);
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochSecond(epochSecond);
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import devoxx.model.Presentation;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.Parent;
+import javafx.util.Duration;
+
+/**
+ * Replays the whole conference week through the normal display update at
+ * accelerated speed, to find leaks and slow transitions before the venue
+ * opens.
+ *
+ * Every tick moves the replay clock one minute and updates the display.
+ * Nights and other long gaps are skipped.  For every session change the
+ * time taken and the bytes allocated on the FX thread are recorded, the
+ * heap is sampled at the start of every day.  The replay fails when a
+ * transition is slower than replay-max-transition, when the heap grew more
+ * than replay-max-heap-growth after the first day, when a session was
+ * never shown or when the update threw an exception.
+ *
+ * The updates in between, where the same session stays on screen, must
+ * not allocate more than replay-max-idle-allocation bytes once the code
+ * has warmed up.  This keeps the steady state display update free of
+ * garbage.
+ */
+public final class ReplayHarness {
+
+    private final static Logger LOGGER = Logger.getLogger(ReplayHarness.class.getName());
+
+    private static final long MINUTE = 60;
+    private static final long GAP = 30 * MINUTE;
+    private static final long BYTES_PER_MB = 1024 * 1024;
+    private static final int WARMUP_TICKS = 120;
+
+    /**
+     * The display being replayed
+     */
+    public interface Screen {
+
+        /**
+         * Update the display for the time of the replay clock
+         *
+         * @return The session shown as the current one
+         */
+        Presentation update();
+
+        /**
+         * Get the session the next screen was prepared for
+         *
+         * @return The prepared session or null
+         */
+        Presentation prepared();
+    }
+
+    private final ReplayClock clock;
+    private final List<Presentation> presentations;
+    private final Screen screen;
+    private final Parent layoutRoot;
+    private final int speed;
+    private final long maxTransitionNanos;
+    private final long maxHeapGrowth;
+    private final long maxIdleAllocation;
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final Map<Presentation, Boolean> shown = new IdentityHashMap<>();
+    private final List<String> anomalies = new ArrayList<>();
+
+    private Timeline ticker;
+    private Consumer<Boolean> onFinished;
+    private Presentation current;
+    private Presentation prepared;
+    private long measureOverhead;
+    private int ticks;
+    private int idleTicks;
+    private int idleOverBudget;
+    private long idleAllocated;
+    private long maxIdleAllocated;
+    private long end;
+    private long lastDay = Long.MIN_VALUE;
+    private long baselineHeap = -1;
+    private long lastHeap;
+    private int transitions;
+    private long totalNanos;
+    private long maxNanos;
+    private long totalAllocated;
+    private long maxAllocated;
+
+    /**
+     * Constructor
+     *
+     * @param controlProperties The replay settings
+     * @param clock The clock used by the display update
+     * @param presentations The schedule to replay, sorted by start time
+     * @param screen The display to update
+     * @param layoutRoot Root that is laid out after each transition when
+     * the stage is not shown, or null
+     */
+    public ReplayHarness(final ControlProperties controlProperties,
+                         final ReplayClock clock,
+                         final List<Presentation> presentations,
+                         final Screen screen,
+                         final Parent layoutRoot) {
+        this.clock = clock;
+        this.presentations = presentations;
+        this.screen = screen;
+        this.layoutRoot = layoutRoot;
+        this.maxIdleAllocation = controlProperties.getReplayMaxIdleAllocation();
+        this.speed = controlProperties.getReplaySpeed();
+        this.maxTransitionNanos = controlProperties.getReplayMaxTransition() * 1_000_000L;
+        this.maxHeapGrowth = controlProperties.getReplayMaxHeapGrowth() * BYTES_PER_MB;
+    }
+
+    /**
+     * Start the replay, must be called on the FX application thread.
+     *
+     * @param onFinished Called with true when the replay passed
+     */
+    public void start(final Consumer<Boolean> onFinished) {
+        this.onFinished = onFinished;
+
+        if (presentations.isEmpty()) {
+            anomalies.add("No sessions to replay");
+            finish();
+            return;
+        }
+
+        clock.set(presentations.get(0).fromEpochSecond - GAP);
+        end = presentations.get(presentations.size() - 1).toEpochSecond + GAP;
+
+        if (isAllocationMeasured()) {
+            ((com.sun.management.ThreadMXBean) threadBean).setThreadAllocatedMemoryEnabled(true);
+
+            // Reading the counter allocates a little itself
+            final long threadId = Thread.currentThread().getId();
+            for (int i = 0; i < 10; i++) {
+                measureOverhead = -allocatedBytes(threadId) + allocatedBytes(threadId);
+            }
+        } else {
+            LOGGER.warning("Allocations can't be measured on this JVM, allocation budget not checked");
+        }
+
+        LOGGER.log(Level.INFO, "Replaying {0} sessions at {1} minutes per second",
+                new Object[]{presentations.size(), speed});
+
+        ticker = new Timeline(new KeyFrame(Duration.millis(1000.0 / speed), e -> tick()));
+        ticker.setCycleCount(Timeline.INDEFINITE);
+        ticker.play();
+    }
+
+    private void tick() {
+        final long now = clock.epochSecond();
+
+        if (now > end) {
+            ticker.stop();
+            finish();
+            return;
+        }
+
+        final long day = now / (24 * 60 * MINUTE);
+        if (day != lastDay) {
+            lastDay = day;
+            sampleHeap();
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long allocatedBefore = allocatedBytes(threadId);
+        final long start = System.nanoTime();
+
+        final Presentation shownPresentation;
+        final Presentation preparedPresentation;
+        try {
+            shownPresentation = screen.update();
+            preparedPresentation = screen.prepared();
+
+            // Nothing lays out a stage that is not shown, include it in the measurement
+            if (layoutRoot != null && shownPresentation != current) {
+                layoutRoot.applyCss();
+                layoutRoot.layout();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Display update failed", e);
+            anomalies.add("Display update failed at " + clock.instant() + ": " + e);
+            ticker.stop();
+            finish();
+            return;
+        }
+
+        final long nanos = System.nanoTime() - start;
+        final long allocated = allocatedBytes(threadId) - allocatedBefore - measureOverhead;
+        ticks++;
+
+        if (shownPresentation != current) {
+            recordTransition(shownPresentation, nanos, allocated);
+        } else if (preparedPresentation == prepared && ticks > WARMUP_TICKS) {
+            recordIdle(allocated);
+        }
+        prepared = preparedPresentation;
+
+        clock.set(nextTime(now));
+    }
+
+    private void recordTransition(final Presentation next, final long nanos, final long allocated) {
+        current = next;
+        transitions++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        totalAllocated += allocated;
+        maxAllocated = Math.max(maxAllocated, allocated);
+
+        if (next != null) {
+            shown.put(next, Boolean.TRUE);
+        }
+
+        LOGGER.log(Level.FINE, "Transition at {0} to {1}: {2} ms, {3} KB allocated",
+                new Object[]{clock.instant(), next == null ? "no session" : next.id,
+                    String.format("%.2f", nanos / 1_000_000.0), allocated / 1024});
+
+        if (nanos > maxTransitionNanos) {
+            anomalies.add(String.format("Slow transition at %s to %s: %.2f ms",
+                    clock.instant(), next == null ? "no session" : next.id, nanos / 1_000_000.0));
+        }
+    }
+
+    private void recordIdle(final long allocated) {
+        idleTicks++;
+        idleAllocated += allocated;
+        maxIdleAllocated = Math.max(maxIdleAllocated, allocated);
+
+        if (allocated > maxIdleAllocation && isAllocationMeasured()) {
+            idleOverBudget++;
+            LOGGER.log(Level.FINE, "Update without a session change at {0} allocated {1} bytes",
+                    new Object[]{clock.instant(), allocated});
+        }
+    }
+
+    /**
+     * Move one minute on, or skip to just before the next session when
+     * nothing happens for a long time (the nights).
+     */
+    private long nextTime(final long now) {
+        for (Presentation presentation : presentations) {
+            if (presentation.fromEpochSecond <= now && now < presentation.toEpochSecond) {
+                return now + MINUTE;
+            }
+            if (presentation.fromEpochSecond > now) {
+                return presentation.fromEpochSecond - now > 2 * GAP
+                        ? presentation.fromEpochSecond - GAP : now + MINUTE;
+            }
+        }
+        return now + MINUTE;
+    }
+
+    private void sampleHeap() {
+        System.gc();
+        lastHeap = memoryBean.getHeapMemoryUsage().getUsed();
+
+        // The first day fills the caches, growth is measured from the second day
+        if (baselineHeap < 0 && transitions > 0) {
+            baselineHeap = lastHeap;
+        }
+
+        LOGGER.log(Level.INFO, "Replay heap at {0}: {1} KB used, non-heap {2} KB",
+                new Object[]{clock.instant(), lastHeap / 1024,
+                    memoryBean.getNonHeapMemoryUsage().getUsed() / 1024});
+    }
+
+    private boolean isAllocationMeasured() {
+        return threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported();
+    }
+
+    private long allocatedBytes(final long threadId) {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(threadId);
+        }
+        return 0;
+    }
+
+    private void finish() {
+        sampleHeap();
+
+        for (Presentation presentation : presentations) {
+            if (!shown.containsKey(presentation)) {
+                anomalies.add("Session never shown: " + presentation.id + " " + presentation.title);
+            }
+        }
+
+        if (baselineHeap >= 0 && lastHeap - baselineHeap > maxHeapGrowth) {
+            anomalies.add(String.format("Heap grew %d KB during the replay",
+                    (lastHeap - baselineHeap) / 1024));
+        }
+
+        if (idleOverBudget > 0) {
+            anomalies.add(String.format("%d of %d updates without a session change allocated more than"
+                    + " %d bytes, max %d bytes", idleOverBudget, idleTicks, maxIdleAllocation,
+                    maxIdleAllocated));
+        }
+
+        if (idleTicks > 0) {
+            LOGGER.log(Level.INFO, "Replay: {0} updates without a session change, avg {1} max {2} bytes allocated",
+                    new Object[]{idleTicks, idleAllocated / idleTicks, maxIdleAllocated});
+        }
+
+        if (transitions > 0) {
+            LOGGER.log(Level.INFO,
+                    "Replay: {0} transitions, avg {1} ms, max {2} ms, avg {3} KB, max {4} KB allocated",
+                    new Object[]{transitions,
+                        String.format("%.2f", totalNanos / (double) transitions / 1_000_000),
+                        String.format("%.2f", maxNanos / 1_000_000.0),
+                        totalAllocated / transitions / 1024, maxAllocated / 1024});
+        }
+
+        for (String anomaly : anomalies) {
+            LOGGER.severe(anomaly);
+        }
+
+        LOGGER.info(anomalies.isEmpty() ? "Replay PASSED" : "Replay FAILED");
+        onFinished.accept(anomalies.isEmpty());
+    }
+}
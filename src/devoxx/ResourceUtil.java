@@ -1,51 +1,77 @@
 package devoxx;
 
+import devoxx.jfr.DownloadEvent;
+import devoxx.jfr.Flight;
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Load a file from the given URL.
  */
 public class ResourceUtil {
 
+    private final static Logger LOGGER = Logger.getLogger(ResourceUtil.class.getName());
 
     /**
-     * Download the given JSON file
+     * Download the given JSON file into a working file, which is only
+     * written when its content changed
      *
      * @param url The URL to load and parse
-     * @param fileName
-     * @return true in case we could download and parse the URL, false in case there is no Internet connection
+     * @param fileName The working file
+     * @return true in case we could download the URL, false in case there is no Internet connection
      * @throws IOException if thrown by the stream
      */
     public static boolean download(String url, String fileName)
         throws IOException {
-        InputStream in;
-        System.out.println("I have to download "+url);
+        try {
+            WorkingFiles.write(fileName, fetch(url));
+            return true;
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Unable to download " + url + ", using the cached data", ex);
+        }
+        return false;
+    }
+
+    /**
+     * Read the content of the given URL into memory, without using a
+     * working file.
+     *
+     * @param url The URL to read
+     * @return The content of the URL
+     * @throws IOException if the URL could not be read
+     */
+    public static String fetch(String url) throws IOException {
+        BackgroundExecutor.checkNotFxThread("fetch " + url);
+        LOGGER.log(Level.FINE, "Fetching {0}", url);
+        final DownloadEvent event = Flight.newDownloadEvent();
+        if (event != null) {
+            event.begin();
+            event.url = url;
+        }
+        final StringBuilder content = new StringBuilder();
         try {
             final URL urlObj = new URL(url);
             HttpURLConnection connection = (HttpURLConnection) urlObj.openConnection();
-            in = connection.getInputStream();
-            File tempFile = new File(fileName + ".tmp");
-            BufferedReader br = new BufferedReader(new InputStreamReader(in, "UTF-8"));
-            String line = br.readLine();
-
-            try (BufferedWriter os = new BufferedWriter(new FileWriter(tempFile))) {
+            try (BufferedReader br = new BufferedReader(
+                    new InputStreamReader(connection.getInputStream(), "UTF-8"))) {
+                String line = br.readLine();
                 while (line != null) {
-                    os.write(line);
-                    os.write('\n');
+                    content.append(line).append('\n');
                     line = br.readLine();
                 }
             }
-            in.close();
-            File destFile = new File(fileName);
-            destFile.delete();
-            tempFile.renameTo(destFile);
-            return true;
-        } catch (IOException ex) {
-            System.out.println("INTERNET IS DOWN, USING CACHED DATA.  :)");
-            ex.printStackTrace();
+            if (event != null) {
+                event.success = true;
+            }
+        } finally {
+            if (event != null) {
+                event.bytes = content.length();
+                event.commit();
+            }
         }
-        return false;
+        return content.toString();
     }
 }
@@ -0,0 +1,220 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.util.Duration;
+
+/**
+ * Watches the resources of a screen that runs for days on end.
+ *
+ * Every watchdog-interval minutes the heap (as left by the last garbage
+ * collection, so no collection is forced), non-heap memory, live threads,
+ * open file handles and scene graph nodes are sampled.  The samples are
+ * logged at FINE, the growth per hour at INFO once an hour.  A budget that
+ * is exceeded is logged as a warning.  When the memory grew by more than
+ * watchdog-restart-growth since the first sample, or a budget stays
+ * exceeded for several samples, the restart action is called so the
+ * application starts afresh from its on-disk state before it runs out of
+ * memory.
+ */
+public final class ResourceWatchdog {
+
+    private final static Logger LOGGER = Logger.getLogger(ResourceWatchdog.class.getName());
+
+    private static final long BYTES_PER_MB = 1024 * 1024;
+    private static final int SUSTAINED_SAMPLES = 3;
+
+    private final List<Parent> roots;
+    private final Runnable restart;
+    private final int interval;
+    private final long heapBudget;
+    private final int threadBudget;
+    private final long fileBudget;
+    private final int nodeBudget;
+    private final long restartGrowth;
+
+    private Timeline timer;
+    private Sample baseline;
+    private Sample previous;
+    private int samples;
+    private int overBudget;
+
+    /**
+     * One set of resource measurements
+     */
+    private static final class Sample {
+
+        final long time = System.currentTimeMillis();
+        long heap;
+        long nonHeap;
+        int threads;
+        long files;
+        int nodes;
+
+        long memory() {
+            return heap + nonHeap;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param controlProperties The watchdog interval and budgets
+     * @param roots The roots of the scenes to count the nodes of
+     * @param restart Action that restarts the application
+     */
+    public ResourceWatchdog(final ControlProperties controlProperties,
+                            final List<Parent> roots,
+                            final Runnable restart) {
+        this.roots = roots;
+        this.restart = restart;
+        this.interval = controlProperties.getWatchdogInterval();
+        this.heapBudget = controlProperties.getWatchdogHeapBudget() * BYTES_PER_MB;
+        this.threadBudget = controlProperties.getWatchdogThreadBudget();
+        this.fileBudget = controlProperties.getWatchdogFileBudget();
+        this.nodeBudget = controlProperties.getWatchdogNodeBudget();
+        this.restartGrowth = controlProperties.getWatchdogRestartGrowth() * BYTES_PER_MB;
+    }
+
+    /**
+     * Start sampling, must be called on the FX application thread.
+     */
+    public void start() {
+        if (interval <= 0) {
+            return;
+        }
+
+        timer = new Timeline(new KeyFrame(Duration.minutes(interval), e -> check()));
+        timer.setCycleCount(Timeline.INDEFINITE);
+        timer.play();
+    }
+
+    /**
+     * Stop sampling
+     */
+    public void stop() {
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    private void check() {
+        final Sample sample = sample();
+        samples++;
+
+        LOGGER.log(Level.FINE, "Resources: heap {0} KB, non-heap {1} KB, threads {2}, files {3}, nodes {4}",
+                new Object[]{sample.heap / 1024, sample.nonHeap / 1024, sample.threads,
+                    sample.files, sample.nodes});
+
+        if (baseline == null) {
+            baseline = sample;
+            previous = sample;
+            return;
+        }
+
+        if (samples % Math.max(1, 60 / interval) == 0) {
+            logTrend(sample);
+        }
+        previous = sample;
+
+        boolean exceeded = false;
+        exceeded |= isOverBudget("Heap", sample.heap / BYTES_PER_MB, heapBudget / BYTES_PER_MB);
+        exceeded |= isOverBudget("Thread", sample.threads, threadBudget);
+        exceeded |= isOverBudget("File handle", sample.files, fileBudget);
+        exceeded |= isOverBudget("Scene node", sample.nodes, nodeBudget);
+        overBudget = exceeded ? overBudget + 1 : 0;
+
+        final long growth = sample.memory() - baseline.memory();
+        if (restartGrowth > 0 && growth > restartGrowth) {
+            LOGGER.log(Level.WARNING, "Memory grew {0} KB since start, restarting", growth / 1024);
+            stop();
+            restart.run();
+        } else if (overBudget >= SUSTAINED_SAMPLES) {
+            LOGGER.log(Level.WARNING, "Over budget for {0} samples, restarting", overBudget);
+            stop();
+            restart.run();
+        }
+    }
+
+    private boolean isOverBudget(final String resource, final long value, final long budget) {
+        if (budget > 0 && value > budget) {
+            LOGGER.log(Level.WARNING, "{0} budget exceeded: {1} > {2}",
+                    new Object[]{resource, value, budget});
+            return true;
+        }
+        return false;
+    }
+
+    private void logTrend(final Sample sample) {
+        final double hours = (sample.time - baseline.time) / 3_600_000.0;
+        LOGGER.log(Level.INFO,
+                "Resource growth per hour: heap {0} KB, non-heap {1} KB, threads {2}, files {3}, nodes {4}",
+                new Object[]{
+                    String.format("%.1f", (sample.heap - baseline.heap) / 1024 / hours),
+                    String.format("%.1f", (sample.nonHeap - baseline.nonHeap) / 1024 / hours),
+                    String.format("%.2f", (sample.threads - baseline.threads) / hours),
+                    String.format("%.2f", (sample.files - baseline.files) / hours),
+                    String.format("%.2f", (sample.nodes - baseline.nodes) / hours)});
+    }
+
+    private Sample sample() {
+        final Sample sample = new Sample();
+        sample.heap = heapAfterCollection();
+        sample.nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage().getUsed();
+        sample.threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        sample.files = openFiles();
+        for (Parent root : roots) {
+            sample.nodes += countNodes(root);
+        }
+        return sample;
+    }
+
+    /**
+     * The heap in use after the last collection of each pool, which does
+     * not include the garbage that is waiting to be collected.
+     */
+    private static long heapAfterCollection() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage == null) {
+                    usage = pool.getUsage();
+                }
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long openFiles() {
+        final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.UnixOperatingSystemMXBean) {
+            return ((com.sun.management.UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount();
+        }
+        return -1;
+    }
+
+    private static int countNodes(final Node node) {
+        int count = 1;
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+}
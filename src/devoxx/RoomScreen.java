@@ -0,0 +1,416 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import devoxx.jfr.Flight;
+import devoxx.jfr.RoomSwitchEvent;
+import devoxx.model.Presentation;
+import devoxx.model.ScheduleSnapshot;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.animation.PauseTransition;
+import javafx.event.EventHandler;
+import javafx.fxml.FXMLLoader;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.input.KeyEvent;
+import javafx.stage.Screen;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+import javafx.util.Duration;
+
+/**
+ * One screen showing the schedule of a room: its scene, its data fetcher
+ * and the state of what is shown.
+ *
+ * A machine with more than one screen has a RoomScreen per screen, their
+ * data fetchers share the speaker store (and so the speakers and their
+ * decoded photos) and are refreshed one after the other by Devoxx.
+ */
+public final class RoomScreen {
+
+    private final static Logger LOGGER = Logger.getLogger(RoomScreen.class.getName());
+
+    private static final long DAY_SECONDS = 24 * 60 * 60L;
+
+    private final Supplier<ControlProperties> configuration;
+    private final Screen display;
+    private final double displayScale;
+    private FXMLDocumentController screenController;
+    private Parent root;
+    private DataFetcher dataFetcher;
+    private RoomSwitchEvent roomSwitch;
+
+    private final ScheduleTime time = new ScheduleTime();
+    private ControlProperties clockProperties;
+
+    private long renderedVersion = -1;
+    private boolean forceRedraw;
+    private Presentation renderedSecond;
+    private Presentation renderedThird;
+    private long redrawDay = Long.MIN_VALUE;
+    private int redraws;
+    private int savedRedraws;
+    private PauseTransition boundaryTimer;
+    private Presentation currentPresentation = null;
+    private Presentation firstPresentation;
+    private Presentation secondPresentation;
+    private Presentation thirdPresentation;
+    private boolean suspended;
+
+    /**
+     * Constructor, builds the scene
+     *
+     * @param configuration Supplies the current configuration
+     * @param dataFetcher The data fetcher for the room of the screen
+     * @param display The display the screen is shown on
+     * @throws IOException If the scene can't be loaded
+     */
+    public RoomScreen(final Supplier<ControlProperties> configuration,
+                      final DataFetcher dataFetcher,
+                      final Screen display) throws IOException {
+        this.configuration = configuration;
+        this.dataFetcher = dataFetcher;
+        this.display = display;
+        displayScale = DisplayScaler.detectScale(configuration.get(), display);
+        loadScene();
+    }
+
+    /**
+     * Build the scene with the code generated from FXMLDocument.fxml at
+     * build time, or load the FXML when that code is not there (a build
+     * without the generateScene task) or fails.  The generated code decodes
+     * the bitmaps at their size on the display right away, with the FXML
+     * they are decoded again when the scene is scaled.
+     *
+     * @throws IOException If the FXML can't be loaded
+     */
+    private void loadScene() throws IOException {
+        try {
+            final Class<?> generated = Class.forName("devoxx.FXMLDocumentScene");
+            final FXMLDocumentController controller = new FXMLDocumentController();
+            root = (Parent) generated.getMethod("create", FXMLDocumentController.class, double.class)
+                    .invoke(null, controller, displayScale);
+            screenController = controller;
+            LOGGER.fine("Scene built by the generated code");
+            return;
+        } catch (ClassNotFoundException e) {
+            LOGGER.fine("No generated scene code, loading the FXML");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Generated scene code failed, loading the FXML", e);
+        }
+
+        final FXMLLoader myLoader = new FXMLLoader(getClass().getResource("FXMLDocument.fxml"));
+        root = (Parent) myLoader.load();
+
+        screenController = ((FXMLDocumentController) myLoader.getController());
+    }
+
+    /**
+     * Show the scene full screen on the display of the screen
+     *
+     * @param stage The stage to show the scene in
+     * @param roomName The name of the room shown
+     * @param keyHandler Handles the keys pressed on this screen
+     * @param visible False to lay out the scene without showing it
+     */
+    public void show(final Stage stage,
+                     final String roomName,
+                     final EventHandler<KeyEvent> keyHandler,
+                     final boolean visible) {
+        final ControlProperties controlProperties = configuration.get();
+
+        // Lay out, decode the bitmaps and size the fonts for the actual display
+        if (displayScale != 1.0) {
+            screenController.setDisplayScale(displayScale);
+        }
+
+        screenController.setClock(controlProperties);
+        screenController.setReleasePhotos(controlProperties.isCompactModel());
+
+        final Scene scene = new Scene(root);
+        scene.setOnKeyPressed(keyHandler);
+        scene.setFill(null);
+
+        final Rectangle2D bounds = display.getBounds();
+        stage.initStyle(StageStyle.UNDECORATED);
+        stage.setX(bounds.getMinX());
+        stage.setY(bounds.getMinY());
+        stage.setScene(scene);
+        if (visible) {
+            stage.show();
+        }
+
+        if (controlProperties.isFlattenBackground()) {
+            screenController.flattenBackground();
+        }
+
+        screenController.setRoom(roomName);
+
+        screenController.hideDebug();
+    }
+
+    public FXMLDocumentController getController() {
+        return screenController;
+    }
+
+    public Parent getRoot() {
+        return root;
+    }
+
+    public DataFetcher getDataFetcher() {
+        return dataFetcher;
+    }
+
+    /**
+     * Switch to another data fetcher, e.g. for a new data source, the
+     * screen is rebuilt on the next update.
+     *
+     * @param fetcher The new data fetcher
+     */
+    public void setDataFetcher(final DataFetcher fetcher) {
+        dataFetcher = fetcher;
+        renderedVersion = -1;
+        forceRedraw = true;
+    }
+
+    /**
+     * Get the session shown as the current one
+     *
+     * @return The current session or null
+     */
+    public Presentation getCurrentPresentation() {
+        return currentPresentation;
+    }
+
+    /**
+     * Set the clock used for the current time outside of test mode
+     *
+     * @param timeSource The clock to use
+     */
+    public void setTimeSource(final Clock timeSource) {
+        time.setClock(timeSource);
+        screenController.setTimeSource(timeSource);
+    }
+
+    /**
+     * Stop the clock and drop the sessions shown for the quiet hours, the
+     * display is not updated until the screen is resumed.
+     */
+    public void suspend() {
+        suspended = true;
+        if (boundaryTimer != null) {
+            boundaryTimer.stop();
+            boundaryTimer = null;
+        }
+        screenController.suspend();
+        currentPresentation = null;
+        renderedSecond = null;
+        renderedThird = null;
+    }
+
+    /**
+     * Rebuild the screen after the quiet hours, on the next update
+     */
+    public void resume() {
+        suspended = false;
+        forceRedraw = true;
+        clockProperties = null;
+    }
+
+    /**
+     * Show another room, its schedule is shown once the caller updated the
+     * data.
+     *
+     * @param roomId The room ID
+     * @param roomName The name of the room
+     */
+    public void switchRoom(final String roomId, final String roomName) {
+        if (Flight.ENABLED) {
+            endRoomSwitch(false);
+            roomSwitch = Flight.newRoomSwitchEvent();
+            roomSwitch.begin();
+            roomSwitch.fromRoom = dataFetcher.getRoomId();
+            roomSwitch.toRoom = roomId;
+        }
+
+        screenController.setRoom(roomName);
+
+        dataFetcher.clearAll();
+
+        dataFetcher.setRoomId(roomId);
+
+        currentPresentation = null;
+    }
+
+    /**
+     * Record the room switch in progress, once the data of the new room is
+     * shown or could not be retrieved.
+     *
+     * @param success Whether the new room is shown
+     */
+    public void endRoomSwitch(final boolean success) {
+        if (roomSwitch != null) {
+            roomSwitch.success = success;
+            roomSwitch.commit();
+            roomSwitch = null;
+        }
+    }
+
+    /**
+     * Update the display.  When the session shown is still the current one
+     * nothing is allocated, so the garbage collector stays quiet between
+     * the session changes.
+     */
+    public void updateDisplay() {
+        if (suspended) {
+            return;
+        }
+
+        final ControlProperties controlProperties = configuration.get();
+
+        if (clockProperties != controlProperties) {
+            clockProperties = controlProperties;
+            screenController.setClock(controlProperties);
+        }
+
+        final long nowEpochSecond = time.now(controlProperties);
+
+        // Lock free read of the latest published schedule
+        final ScheduleSnapshot schedule = dataFetcher.getSnapshot();
+        final List<Presentation> presentations = schedule.presentations;
+
+        firstPresentation = null;
+        secondPresentation = null;
+        thirdPresentation = null;
+
+        for (int i = 0; i < presentations.size() && thirdPresentation == null; i++) {
+            final Presentation presentation = presentations.get(i);
+
+            if (nowEpochSecond < presentation.toEpochSecond) {
+                if (firstPresentation == null) {
+                    firstPresentation = presentation;
+                } else if (secondPresentation == null) {
+                    secondPresentation = presentation;
+                } else {
+                    thirdPresentation = presentation;
+                }
+            }
+        }
+
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Screen update of {0} @ ({1})", new Object[]{dataFetcher.getRoomId(),
+                LocalDateTime.ofEpochSecond(nowEpochSecond, 0, Presentation.ZONE)});
+        }
+
+        countRedraws(nowEpochSecond);
+
+        // Only rebuild the screen when a session shown changed, a refreshed
+        // schedule keeps the instances of the unchanged slots
+        if (forceRedraw || currentPresentation != firstPresentation
+                || renderedSecond != secondPresentation || renderedThird != thirdPresentation) {
+            forceRedraw = false;
+            renderedVersion = schedule.version;
+            currentPresentation = firstPresentation;
+            renderedSecond = secondPresentation;
+            renderedThird = thirdPresentation;
+            redraws++;
+            screenController.setScreenData(firstPresentation, secondPresentation, thirdPresentation);
+            LOGGER.log(Level.FINER, "New presentation: {0}", firstPresentation);
+
+            if (secondPresentation != null) {
+                LOGGER.log(Level.FINER, "Second presentation: {0}", secondPresentation);
+            }
+
+            if (thirdPresentation != null) {
+                LOGGER.log(Level.FINER, "Third presentation: {0}", thirdPresentation);
+            }
+        } else if (renderedVersion != schedule.version) {
+            // A new schedule without changes for this screen, which used to be redrawn
+            renderedVersion = schedule.version;
+            savedRedraws++;
+        }
+
+        renderAhead(controlProperties, schedule, nowEpochSecond);
+    }
+
+    /**
+     * Log the number of screen rebuilds, and the number of rebuilds avoided
+     * for schedule refreshes that didn't change the sessions shown, once a
+     * day.
+     *
+     * @param nowEpochSecond The current time
+     */
+    private void countRedraws(final long nowEpochSecond) {
+        final long day = Math.floorDiv(nowEpochSecond + Presentation.ZONE.getTotalSeconds(), DAY_SECONDS);
+        if (day == redrawDay) {
+            return;
+        }
+
+        if (redrawDay != Long.MIN_VALUE) {
+            LOGGER.log(Level.INFO, "Screen of {0} rebuilt {1} times on {2}, {3} rebuilds saved for unchanged refreshes",
+                    new Object[]{dataFetcher.getRoomId(), redraws, LocalDate.ofEpochDay(redrawDay), savedRedraws});
+        }
+        redrawDay = day;
+        redraws = 0;
+        savedRedraws = 0;
+    }
+
+    /**
+     * A few minutes before the current session ends, prepare the screen for
+     * the session that follows it so the transition is a single cheap pulse.
+     * In real mode a one-shot timer updates the display right at the
+     * boundary instead of waiting for the next screen refresh.
+     *
+     * @param controlProperties The current configuration
+     * @param schedule The schedule being displayed
+     * @param nowEpochSecond The current time
+     */
+    private void renderAhead(final ControlProperties controlProperties,
+                             final ScheduleSnapshot schedule,
+                             final long nowEpochSecond) {
+        final int renderAheadTime = controlProperties.getRenderAheadTime();
+
+        if (firstPresentation == null || renderAheadTime <= 0) {
+            return;
+        }
+
+        final long boundary = firstPresentation.toEpochSecond;
+        if (boundary - nowEpochSecond > renderAheadTime * 60L) {
+            return;
+        }
+
+        final List<Presentation> presentations = schedule.presentations;
+        Presentation nextPresentation = null;
+        for (int i = 0; i < presentations.size(); i++) {
+            if (boundary < presentations.get(i).toEpochSecond) {
+                nextPresentation = presentations.get(i);
+                break;
+            }
+        }
+
+        if (nextPresentation == null) {
+            return;
+        }
+
+        screenController.prepareScreenData(nextPresentation);
+
+        if (!controlProperties.isTestMode() && !controlProperties.isReplayMode()
+                && boundaryTimer == null) {
+            boundaryTimer = new PauseTransition(Duration.seconds(boundary - nowEpochSecond + 1));
+            boundaryTimer.setOnFinished(e -> {
+                boundaryTimer = null;
+                updateDisplay();
+            });
+            boundaryTimer.play();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import devoxx.model.Presentation;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * The current time of a display as epoch second of the schedule's time
+ * zone: the test time in test mode, otherwise the wall clock time.
+ *
+ * It is read on every display update, so it doesn't allocate: the test
+ * time is only converted when the configuration changed, the offset of the
+ * local time zone only when the clock passes an hour (when daylight saving
+ * time may change).
+ */
+public final class ScheduleTime {
+
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+
+    private Clock clock = Clock.systemDefaultZone();
+    private long zoneOffset;
+    private long zoneOffsetValidUntil;
+    private ControlProperties testTimeProperties;
+    private long testEpochSecond;
+
+    /**
+     * Set the clock used outside of test mode
+     *
+     * @param timeSource The clock to use
+     */
+    public void setClock(final Clock timeSource) {
+        clock = timeSource;
+        zoneOffsetValidUntil = 0;
+    }
+
+    /**
+     * Get the current time
+     *
+     * @param controlProperties The current configuration
+     * @return The current time
+     */
+    public long now(final ControlProperties controlProperties) {
+        if (controlProperties.isTestMode()) {
+            if (testTimeProperties != controlProperties) {
+                testTimeProperties = controlProperties;
+                testEpochSecond = LocalDateTime.of(
+                        controlProperties.getStartDate()
+                        .plusDays(controlProperties.getTestDay()),
+                        controlProperties.getTestTime()).toEpochSecond(Presentation.ZONE);
+            }
+            return testEpochSecond;
+        }
+
+        // The schedule times are wall clock times, so use the local time
+        final long millis = clock.millis();
+        if (millis >= zoneOffsetValidUntil) {
+            final ZoneId zone = clock.getZone();
+            zoneOffset = zone.getRules().getOffset(Instant.ofEpochMilli(millis)).getTotalSeconds();
+            zoneOffsetValidUntil = zone instanceof ZoneOffset
+                    ? Long.MAX_VALUE : millis - millis % HOUR_MILLIS + HOUR_MILLIS;
+        }
+        return Math.floorDiv(millis, 1000L) + zoneOffset - Presentation.ZONE.getTotalSeconds();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import devoxx.model.Presentation;
+import java.time.format.DateTimeFormatter;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+
+/**
+ * View-model of the session texts on the screen, the labels are bound to
+ * its properties.
+ *
+ * The texts of a slot are only recomputed when another presentation is
+ * shown in that slot, and a property only fires when its value really
+ * changes, so a transition that only changes the third slot doesn't touch
+ * the labels (and their text layout) of the first two.
+ */
+public final class ScreenModel {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    /**
+     * The number of text fields in the model
+     */
+    public static final int FIELDS = 11;
+
+    private final ReadOnlyStringWrapper sessionTitle = new ReadOnlyStringWrapper(this, "sessionTitle", "");
+    private final ReadOnlyStringWrapper sessionAbstract = new ReadOnlyStringWrapper(this, "sessionAbstract", "");
+    private final ReadOnlyStringWrapper sessionTime = new ReadOnlyStringWrapper(this, "sessionTime", "");
+    private final ReadOnlyStringWrapper talk1Title = new ReadOnlyStringWrapper(this, "talk1Title", "");
+    private final ReadOnlyStringWrapper talk1Time = new ReadOnlyStringWrapper(this, "talk1Time", "");
+    private final ReadOnlyStringWrapper talk2Title = new ReadOnlyStringWrapper(this, "talk2Title", "");
+    private final ReadOnlyStringWrapper talk2Speaker = new ReadOnlyStringWrapper(this, "talk2Speaker", "");
+    private final ReadOnlyStringWrapper talk2Time = new ReadOnlyStringWrapper(this, "talk2Time", "");
+    private final ReadOnlyStringWrapper talk3Title = new ReadOnlyStringWrapper(this, "talk3Title", "");
+    private final ReadOnlyStringWrapper talk3Speaker = new ReadOnlyStringWrapper(this, "talk3Speaker", "");
+    private final ReadOnlyStringWrapper talk3Time = new ReadOnlyStringWrapper(this, "talk3Time", "");
+
+    private Presentation first;
+    private Presentation second;
+    private Presentation third;
+    private boolean filled;
+    private int changes;
+
+    /**
+     * Show the given presentations.
+     *
+     * @param mainPreso The current session
+     * @param summary The summary of the current session when it is already
+     * known, null to get it from the presentation
+     * @param secondPreso The next session
+     * @param thirdPreso The session after that
+     * @return The number of text fields that changed
+     */
+    public int update(final Presentation mainPreso, final String summary,
+                      final Presentation secondPreso, final Presentation thirdPreso) {
+        changes = 0;
+
+        if (!filled || mainPreso != first) {
+            first = mainPreso;
+            if (mainPreso != null && mainPreso.title != null) {
+                set(sessionTitle, mainPreso.title.toUpperCase());
+                set(sessionAbstract, summary != null ? summary : mainPreso.getSummary());
+                set(sessionTime, timeRange(mainPreso));
+                set(talk1Title, mainPreso.title);
+                set(talk1Time, timeRange(mainPreso));
+            } else {
+                set(sessionTitle, "");
+                set(sessionAbstract, "");
+                set(sessionTime, "");
+                set(talk1Title, "");
+                set(talk1Time, "");
+            }
+        }
+
+        if (!filled || secondPreso != second) {
+            second = secondPreso;
+            setSlot(secondPreso, talk2Title, talk2Speaker, talk2Time);
+        }
+
+        if (!filled || thirdPreso != third) {
+            third = thirdPreso;
+            setSlot(thirdPreso, talk3Title, talk3Speaker, talk3Time);
+        }
+
+        filled = true;
+        return changes;
+    }
+
+    /**
+     * Forget the presentations shown, so the next update sets every field
+     * and reports the current session as changed.
+     */
+    public void reset() {
+        first = null;
+        second = null;
+        third = null;
+        filled = false;
+    }
+
+    /**
+     * Is the given presentation another one than the current session shown
+     *
+     * @param mainPreso The presentation to check
+     * @return True when the current session would change
+     */
+    public boolean isMainChanged(final Presentation mainPreso) {
+        return !filled || mainPreso != first;
+    }
+
+    private void setSlot(final Presentation preso,
+                         final ReadOnlyStringWrapper title,
+                         final ReadOnlyStringWrapper speaker,
+                         final ReadOnlyStringWrapper time) {
+        if (preso != null) {
+            set(title, preso.title);
+            set(speaker, preso.getSpeakerList());
+            set(time, timeRange(preso));
+        } else {
+            set(title, "");
+            set(speaker, "");
+            set(time, "");
+        }
+    }
+
+    private void set(final ReadOnlyStringWrapper property, final String value) {
+        final String text = value == null ? "" : value;
+        if (!text.equals(property.get())) {
+            property.set(text);
+            changes++;
+        }
+    }
+
+    private static String timeRange(final Presentation preso) {
+        return preso.getFromTime().format(TIME_FORMAT) + " - " + preso.getToTime().format(TIME_FORMAT);
+    }
+
+    public ReadOnlyStringProperty sessionTitleProperty() {
+        return sessionTitle.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty sessionAbstractProperty() {
+        return sessionAbstract.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty sessionTimeProperty() {
+        return sessionTime.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty talk1TitleProperty() {
+        return talk1Title.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty talk1TimeProperty() {
+        return talk1Time.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty talk2TitleProperty() {
+        return talk2Title.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty talk2SpeakerProperty() {
+        return talk2Speaker.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty talk2TimeProperty() {
+        return talk2Time.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty talk3TitleProperty() {
+        return talk3Title.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty talk3SpeakerProperty() {
+        return talk3Speaker.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty talk3TimeProperty() {
+        return talk3Time.getReadOnlyProperty();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import devoxx.model.Presentation;
+import devoxx.model.SearchIndex;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.event.EventHandler;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.stage.Screen;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+
+/**
+ * The search kiosk: attendees type a few letters and see the matching
+ * sessions of all rooms while they type.
+ *
+ * Every key typed runs a query on the SearchIndex on the FX application
+ * thread, the index is built in the background after every data refresh.
+ */
+public final class SearchScreen {
+
+    private final static Logger LOGGER = Logger.getLogger(SearchScreen.class.getName());
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("EEEE", Locale.ENGLISH);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    /**
+     * Queries taking longer than this are logged, typing must feel instant
+     */
+    private static final long SLOW_QUERY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final int RESULTS = 8;
+
+    private static final Color BEIGE = new Color(0.937, 0.910, 0.878, 1.0);
+    private static final Color ORANGE = new Color(0.965, 0.682, 0.192, 1.0);
+    private static final Color BLUE = new Color(0.310, 0.714, 0.741, 1.0);
+
+    private static final double MARGIN_X = 58;
+    private static final double RESULTS_Y = 250;
+    private static final double ROW_HEIGHT = (DisplayScaler.DESIGN_HEIGHT - RESULTS_Y - 40) / RESULTS;
+    private static final double WIDTH = DisplayScaler.DESIGN_WIDTH - 2 * MARGIN_X;
+
+    private final SearchIndex index;
+    private final Map<String, String> roomNames;
+    private final Pane root = new Pane();
+    private final TextField query = new TextField();
+    private final Label status;
+    private final Label[] titles = new Label[RESULTS];
+    private final Label[] details = new Label[RESULTS];
+
+    /**
+     * Constructor, builds the scene
+     *
+     * @param index The index to search
+     * @param roomNames The names of the rooms, keyed by room ID
+     */
+    public SearchScreen(final SearchIndex index, final Map<String, String> roomNames) {
+        this.index = index;
+        this.roomNames = roomNames;
+
+        final Font headerFont = FXMLDocumentController.loadFont(
+                FXMLDocumentController.FONTS_GOTHAM_EXLIGHT_WEBFONT_TTF, 83);
+        final Font queryFont = FXMLDocumentController.loadFont(
+                FXMLDocumentController.FONTS_GOTHAMBOOK_WEBFONT_TTF, 40);
+        final Font titleFont = FXMLDocumentController.loadFont(
+                FXMLDocumentController.FONTS_GOTHAMBOOK_WEBFONT_TTF, 35);
+        final Font detailFont = FXMLDocumentController.loadFont(
+                FXMLDocumentController.FONTS_GOTHAMBOOK_WEBFONT_TTF, 25);
+
+        root.setPrefSize(DisplayScaler.DESIGN_WIDTH, DisplayScaler.DESIGN_HEIGHT);
+        root.getChildren().add(new Rectangle(DisplayScaler.DESIGN_WIDTH, DisplayScaler.DESIGN_HEIGHT, Color.BLACK));
+        root.getChildren().add(label("FIND A TALK", headerFont, BEIGE, MARGIN_X, 40));
+
+        query.setFont(queryFont);
+        query.setPromptText("Title, topic, track or speaker");
+        query.setLayoutX(MARGIN_X);
+        query.setLayoutY(150);
+        query.setPrefWidth(WIDTH * 0.7);
+        query.textProperty().addListener((observable, oldText, newText) -> search());
+        root.getChildren().add(query);
+
+        status = label("", detailFont, ORANGE, MARGIN_X + WIDTH * 0.7 + 30, 165);
+        root.getChildren().add(status);
+
+        for (int i = 0; i < RESULTS; i++) {
+            final double y = RESULTS_Y + i * ROW_HEIGHT;
+            final Line separator = new Line(MARGIN_X, y, DisplayScaler.DESIGN_WIDTH - MARGIN_X, y);
+            separator.setStroke(BEIGE);
+            root.getChildren().add(separator);
+
+            titles[i] = label("", titleFont, BEIGE, MARGIN_X, y + 8);
+            details[i] = label("", detailFont, BLUE, MARGIN_X, y + 55);
+            root.getChildren().addAll(titles[i], details[i]);
+        }
+    }
+
+    private static Label label(final String text, final Font font, final Color color,
+                               final double x, final double y) {
+        final Label label = new Label(text);
+        label.setFont(font);
+        label.setTextFill(color);
+        label.setLayoutX(x);
+        label.setLayoutY(y);
+        label.setMaxWidth(WIDTH);
+        return label;
+    }
+
+    /**
+     * Show the kiosk full screen on the given display
+     *
+     * @param stage The stage to show the scene in
+     * @param display The display to show the stage on
+     * @param controlProperties The configuration
+     * @param keyHandler Handles the control keys, only keys pressed with the
+     * shortcut modifier are passed on as all others are typed in the query
+     */
+    public void show(final Stage stage,
+                     final Screen display,
+                     final ControlProperties controlProperties,
+                     final EventHandler<KeyEvent> keyHandler) {
+        final double displayScale = DisplayScaler.detectScale(controlProperties, display);
+        if (displayScale != 1.0) {
+            DisplayScaler.scale(root, displayScale);
+        }
+
+        final Scene scene = new Scene(root);
+        scene.addEventHandler(KeyEvent.KEY_PRESSED, e -> {
+            if (e.isShortcutDown()) {
+                keyHandler.handle(e);
+            }
+        });
+        scene.setFill(null);
+
+        final Rectangle2D bounds = display.getBounds();
+        stage.initStyle(StageStyle.UNDECORATED);
+        stage.setX(bounds.getMinX());
+        stage.setY(bounds.getMinY());
+        stage.setScene(scene);
+        stage.show();
+
+        query.requestFocus();
+    }
+
+    public Parent getRoot() {
+        return root;
+    }
+
+    /**
+     * Run the query again, e.g. after the index was updated
+     */
+    public void search() {
+        final long start = System.nanoTime();
+        final List<Presentation> found = index.search(query.getText(), RESULTS);
+        final long elapsed = System.nanoTime() - start;
+
+        if (elapsed > SLOW_QUERY_NANOS) {
+            LOGGER.log(Level.WARNING, "Slow search for \"{0}\": {1} ms",
+                    new Object[]{query.getText(), TimeUnit.NANOSECONDS.toMillis(elapsed)});
+        } else if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Search for \"{0}\": {1} sessions in {2} us",
+                    new Object[]{query.getText(), found.size(), TimeUnit.NANOSECONDS.toMicros(elapsed)});
+        }
+
+        for (int i = 0; i < RESULTS; i++) {
+            if (i < found.size()) {
+                show(found.get(i), titles[i], details[i]);
+            } else {
+                titles[i].setText("");
+                details[i].setText("");
+            }
+        }
+
+        if (query.getText().trim().isEmpty()) {
+            status.setText(index.size() + " sessions");
+        } else if (found.isEmpty()) {
+            status.setText("Nothing found");
+        } else {
+            status.setText("");
+        }
+    }
+
+    private void show(final Presentation presentation, final Label title, final Label detail) {
+        title.setText(presentation.title);
+
+        final StringBuilder text = new StringBuilder();
+        text.append(presentation.getFromTime().format(DAY_FORMAT))
+            .append(' ').append(presentation.getFromTime().format(TIME_FORMAT))
+            .append(" - ").append(presentation.getToTime().format(TIME_FORMAT));
+
+        final String roomName = roomNames.get(presentation.room);
+        if (roomName != null) {
+            text.append("   ").append(roomName);
+        }
+
+        final String speakers = presentation.getSpeakerList();
+        if (speakers != null && !speakers.isEmpty()) {
+            text.append("   ").append(speakers);
+        }
+        detail.setText(text.toString());
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import devoxx.json.SpeakerDeserializer;
+import devoxx.model.Speaker;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent, uuid keyed store of speaker details.
+ *
+ * Speakers are resolved on demand from the speaker links in the schedule
+ * slots of the room, so only the speakers that can actually be shown are
+ * downloaded.  Resolved speakers are kept for speaker-ttl hours, failed
+ * lookups are remembered for speaker-negative-ttl minutes so an unknown
+ * speaker is not requested again on every refresh.  Concurrent lookups of
+ * the same uuid share one in-flight request.
+ */
+public class SpeakerStore {
+
+    private final static Logger LOGGER = Logger.getLogger(SpeakerStore.class.getName());
+
+    private static final String STORE_JSON = "speaker-store.json";
+
+    private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Speaker>> inFlight = new ConcurrentHashMap<>();
+
+    private final String imageCache;
+    private final long ttl;
+    private final long negativeTtl;
+    private final File storeFile;
+
+    private volatile boolean dirty;
+    private volatile boolean loaded;
+
+    /**
+     * A resolved speaker, or a failed lookup when speaker is null
+     */
+    private static final class Entry {
+
+        final Speaker speaker;
+        final long expires;
+
+        Entry(final Speaker speaker, final long expires) {
+            this.speaker = speaker;
+            this.expires = expires;
+        }
+
+        boolean isFresh(final long now) {
+            return now < expires;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param controlProperties control properties
+     */
+    public SpeakerStore(final ControlProperties controlProperties) {
+        this(controlProperties, new File(STORE_JSON));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param controlProperties control properties
+     * @param storeFile The file the store is persisted in
+     */
+    public SpeakerStore(final ControlProperties controlProperties, final File storeFile) {
+        this.imageCache = controlProperties.getImageCache();
+        this.ttl = controlProperties.getSpeakerTTL() * 60 * MILLIS_PER_MINUTE;
+        this.negativeTtl = controlProperties.getSpeakerNegativeTTL() * MILLIS_PER_MINUTE;
+        this.storeFile = storeFile;
+    }
+
+    /**
+     * Get the speaker for the given speaker link, downloading the details
+     * only when they are not in the store or have expired.
+     *
+     * @param link The URL of the speaker details
+     * @return The speaker or null if the speaker could not be retrieved
+     */
+    public Speaker resolve(final String link) {
+        final String uuid = link.substring(link.lastIndexOf('/') + 1);
+
+        if (!loaded) {
+            load();
+        }
+
+        final Entry entry = entries.get(uuid);
+        if (entry != null && entry.isFresh(System.currentTimeMillis())) {
+            return entry.speaker;
+        }
+
+        final CompletableFuture<Speaker> lookup = new CompletableFuture<>();
+        final CompletableFuture<Speaker> running = inFlight.putIfAbsent(uuid, lookup);
+        if (running != null) {
+            LOGGER.log(Level.FINEST, "Sharing in-flight lookup for speaker {0}", uuid);
+            return running.join();
+        }
+
+        Speaker speaker = entry == null ? null : entry.speaker;
+        try {
+            speaker = download(uuid, link, entry);
+        } finally {
+            lookup.complete(speaker);
+            inFlight.remove(uuid, lookup);
+        }
+        return speaker;
+    }
+
+    private Speaker download(final String uuid, final String link, final Entry stale) {
+        final long now = System.currentTimeMillis();
+        try {
+            LOGGER.log(Level.FINE, "Retrieving speaker details from {0}", link);
+            final JsonElement root = new JsonParser().parse(ResourceUtil.fetch(link));
+            final Speaker speaker = new SpeakerDeserializer(imageCache).deserialize(root, null, null);
+            entries.put(uuid, new Entry(speaker, now + ttl));
+
+            // Also for a new expiry time alone, or a restart downloads the
+            // speaker again. The save once per refresh batches the writes.
+            dirty = true;
+            return speaker;
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Failed to retrieve speaker {0}: {1}",
+                    new Object[]{link, ex.getMessage()});
+
+            // Keep serving an expired speaker, but don't retry it before the negative TTL
+            final Speaker speaker = stale == null ? null : stale.speaker;
+            entries.put(uuid, new Entry(speaker, now + negativeTtl));
+            dirty = true;
+            return speaker;
+        }
+    }
+
+    /**
+     * Get the number of speakers in the store
+     *
+     * @return the number of resolved speakers
+     */
+    public int size() {
+        int count = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.speaker != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Write the store to disk if anything changed since the last save.
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+
+        final JsonArray array = new JsonArray();
+        for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+            final Entry entry = mapEntry.getValue();
+            final JsonObject obj = new JsonObject();
+            obj.addProperty("uuid", mapEntry.getKey());
+            obj.addProperty("expires", entry.expires);
+            if (entry.speaker != null) {
+                obj.addProperty("fullName", entry.speaker.fullName);
+                obj.addProperty("avatarURL", entry.speaker.downloadURL);
+            }
+            array.add(obj);
+        }
+
+        final File tempFile = new File(storeFile.getPath() + ".tmp");
+        try {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+                writer.write(array.toString());
+            }
+            Files.move(tempFile.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            WorkingFiles.countWritten(storeFile.length());
+            LOGGER.log(Level.FINER, "Saved {0} speaker store entries", entries.size());
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Unable to save speaker store", ex);
+            dirty = true;
+        }
+    }
+
+    /**
+     * Load the store from disk, on first use so this happens on the data
+     * refresh thread.
+     */
+    private synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        if (!storeFile.exists()) {
+            return;
+        }
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(storeFile), StandardCharsets.UTF_8)) {
+            for (JsonElement element : new JsonParser().parse(reader).getAsJsonArray()) {
+                final JsonObject obj = element.getAsJsonObject();
+                final String uuid = obj.get("uuid").getAsString();
+                final long expires = obj.get("expires").getAsLong();
+
+                Speaker speaker = null;
+                if (obj.has("fullName")) {
+                    speaker = new Speaker(uuid, obj.get("fullName").getAsString(),
+                            obj.get("avatarURL").getAsString(), imageCache);
+                }
+                entries.put(uuid, new Entry(speaker, expires));
+            }
+            LOGGER.log(Level.FINE, "Loaded {0} speaker store entries", entries.size());
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Ignoring unreadable speaker store " + storeFile, ex);
+            entries.clear();
+        }
+    }
+}
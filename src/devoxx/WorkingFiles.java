@@ -0,0 +1,192 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The working files in the working directory, i.e. the downloaded schedule
+ * of every day, which are read back when the server can't be reached.
+ *
+ * A file is only written when its content really changed, most refreshes
+ * download exactly the same schedule.  With working-files = MEMORY the
+ * files are kept in memory and the changed ones are written to disk in one
+ * batch every working-files-flush-time minutes (and when the application
+ * exits), so the SD card of a Pi sees a handful of writes a day.  The bytes
+ * written to storage, including the speaker store and the photo cache, are
+ * logged every hour.
+ */
+public final class WorkingFiles {
+
+    private final static Logger LOGGER = Logger.getLogger(WorkingFiles.class.getName());
+
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+
+    private static volatile boolean inMemory;
+    private static volatile long flushMillis = HOUR_MILLIS;
+
+    /* The content of the files, in memory mode */
+    private static final Map<String, String> CONTENT = new HashMap<>();
+    /* Digest of the content on disk */
+    private static final Map<String, byte[]> STORED = new HashMap<>();
+    /* The files changed since they were written to disk, in memory mode */
+    private static final Set<String> PENDING = new LinkedHashSet<>();
+    private static long lastFlush = System.currentTimeMillis();
+
+    private static final Object COUNT_LOCK = new Object();
+    private static long countStart = System.currentTimeMillis();
+    private static long countedBytes;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(WorkingFiles::flush, "devoxx-flush"));
+    }
+
+    private WorkingFiles() {
+    }
+
+    /**
+     * Apply the working-files configuration
+     *
+     * @param controlProperties The configuration
+     */
+    public static synchronized void configure(final ControlProperties controlProperties) {
+        flushMillis = controlProperties.getWorkingFilesFlushTime() * 60 * 1000L;
+        if (inMemory && !controlProperties.isWorkingFilesInMemory()) {
+            flush();
+            CONTENT.clear();
+        }
+        inMemory = controlProperties.isWorkingFilesInMemory();
+    }
+
+    /**
+     * Read a working file
+     *
+     * @param name The file name
+     * @return The content
+     * @throws IOException If there is no such file or it can't be read
+     */
+    public static synchronized String read(final String name) throws IOException {
+        final String content = CONTENT.get(name);
+        if (content != null) {
+            return content;
+        }
+        return new String(Files.readAllBytes(new File(name).toPath()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a working file, to disk only when its content changed
+     *
+     * @param name The file name
+     * @param content The new content
+     */
+    public static synchronized void write(final String name, final String content) {
+        countWritten(0);
+
+        final byte[] digest = digest(content);
+        final boolean stored = Arrays.equals(digest, storedDigest(name));
+
+        if (inMemory) {
+            CONTENT.put(name, content);
+            if (stored) {
+                PENDING.remove(name);
+            } else {
+                PENDING.add(name);
+            }
+            if (System.currentTimeMillis() - lastFlush >= flushMillis) {
+                flush();
+            }
+        } else if (!stored) {
+            store(name, content, digest);
+        }
+    }
+
+    /**
+     * Write the changed files kept in memory to disk
+     */
+    public static synchronized void flush() {
+        lastFlush = System.currentTimeMillis();
+        if (PENDING.isEmpty()) {
+            return;
+        }
+
+        LOGGER.log(Level.FINE, "Writing {0} changed working files", PENDING.size());
+        for (String name : PENDING) {
+            final String content = CONTENT.get(name);
+            store(name, content, digest(content));
+        }
+        PENDING.clear();
+    }
+
+    private static void store(final String name, final String content, final byte[] digest) {
+        final File file = new File(name);
+        final File tempFile = new File(name + ".tmp");
+        try {
+            final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            Files.write(tempFile.toPath(), bytes);
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            STORED.put(name, digest);
+            countWritten(bytes.length);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Unable to write " + name, ex);
+        }
+    }
+
+    /**
+     * Get the digest of the content on disk, reading the file once after
+     * the start so an unchanged file is not written again either
+     */
+    private static byte[] storedDigest(final String name) {
+        byte[] digest = STORED.get(name);
+        if (digest == null) {
+            final File file = new File(name);
+            try {
+                digest = file.exists() ? digest(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8))
+                        : new byte[0];
+            } catch (IOException ex) {
+                digest = new byte[0];
+            }
+            STORED.put(name, digest);
+        }
+        return digest;
+    }
+
+    private static byte[] digest(final String content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    /**
+     * Count bytes written to storage, the count is logged every hour
+     *
+     * @param bytes The number of bytes written
+     */
+    public static void countWritten(final long bytes) {
+        synchronized (COUNT_LOCK) {
+            final long now = System.currentTimeMillis();
+            if (now - countStart >= HOUR_MILLIS) {
+                LOGGER.log(Level.INFO, "{0} bytes written to storage in the last {1} minutes",
+                        new Object[]{countedBytes, (now - countStart) / 60000});
+                countStart = now;
+                countedBytes = 0;
+            }
+            countedBytes += bytes;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr;
+
+/**
+ * Parse of the schedule file of one day, including resolving its speakers
+ */
+public abstract class DayParseEvent {
+
+    public String file;
+    public long bytes;
+    public int slots;
+    public int presentations;
+
+    /**
+     * Start timing the event
+     */
+    public abstract void begin();
+
+    /**
+     * End the event and write it to the recording
+     */
+    public abstract void commit();
+}
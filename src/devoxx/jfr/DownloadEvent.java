@@ -0,0 +1,26 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr;
+
+/**
+ * Download of a schedule file or speaker details
+ */
+public abstract class DownloadEvent {
+
+    public String url;
+    /** The working file, null when read into memory */
+    public String file;
+    public long bytes;
+    public boolean success;
+
+    /**
+     * Start timing the event
+     */
+    public abstract void begin();
+
+    /**
+     * End the event and write it to the recording
+     */
+    public abstract void commit();
+}
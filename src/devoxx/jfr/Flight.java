@@ -0,0 +1,130 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr;
+
+import devoxx.ControlProperties;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Entry point for the JDK Flight Recorder events of the application.
+ *
+ * The Pi may run a JDK 8 without Flight Recorder, which can't compile
+ * against jdk.jfr either.  The events of this package are plain classes,
+ * the Recorder that writes them to Flight Recorder is in the jfr source
+ * set and is loaded by name when jdk.jfr is there.  Without it the
+ * factory methods return null:
+ *
+ * <pre>
+ * final DownloadEvent event = Flight.newDownloadEvent();
+ * if (event != null) {
+ * </pre>
+ */
+public final class Flight {
+
+    private final static Logger LOGGER = Logger.getLogger(Flight.class.getName());
+
+    private static final String RECORDER = "devoxx.jfr.recorder.JfrRecorder";
+
+    private static final Recorder recorder = loadRecorder();
+
+    /**
+     * Is the Flight Recorder available in this JVM
+     */
+    public static final boolean ENABLED = recorder != null;
+
+    private Flight() {
+    }
+
+    private static Recorder loadRecorder() {
+        try {
+            final Class<?> flightRecorder = Class.forName("jdk.jfr.FlightRecorder");
+            if (!(Boolean) flightRecorder.getMethod("isAvailable").invoke(null)) {
+                return null;
+            }
+            return (Recorder) Class.forName(RECORDER).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // No jdk.jfr, or built without the jfr source set
+            return null;
+        }
+    }
+
+    /**
+     * @return A new download event, null without Flight Recorder
+     */
+    public static DownloadEvent newDownloadEvent() {
+        return ENABLED ? recorder.newDownloadEvent() : null;
+    }
+
+    /**
+     * @return A new day parse event, null without Flight Recorder
+     */
+    public static DayParseEvent newDayParseEvent() {
+        return ENABLED ? recorder.newDayParseEvent() : null;
+    }
+
+    /**
+     * @return A new photo cache event, null without Flight Recorder
+     */
+    public static PhotoCacheEvent newPhotoCacheEvent() {
+        return ENABLED ? recorder.newPhotoCacheEvent() : null;
+    }
+
+    /**
+     * @return A new photo load event, null without Flight Recorder
+     */
+    public static PhotoLoadEvent newPhotoLoadEvent() {
+        return ENABLED ? recorder.newPhotoLoadEvent() : null;
+    }
+
+    /**
+     * @return A new room switch event, null without Flight Recorder
+     */
+    public static RoomSwitchEvent newRoomSwitchEvent() {
+        return ENABLED ? recorder.newRoomSwitchEvent() : null;
+    }
+
+    /**
+     * @return A new screen data event, null without Flight Recorder
+     */
+    public static ScreenDataEvent newScreenDataEvent() {
+        return ENABLED ? recorder.newScreenDataEvent() : null;
+    }
+
+    /**
+     * Start the rolling on-device recording when it is switched on.
+     *
+     * @param controlProperties The recording settings
+     */
+    public static void startRecording(final ControlProperties controlProperties) {
+        if (!controlProperties.isFlightRecording()) {
+            return;
+        }
+
+        if (!ENABLED) {
+            LOGGER.warning("Flight Recorder is not available in this JVM, no recording made");
+            return;
+        }
+
+        recorder.startRecording(controlProperties.getFlightRecordingMaxAge(),
+                controlProperties.getFlightRecordingMaxSize());
+    }
+
+    /**
+     * Write the rolling recording to a file in the working directory.
+     */
+    public static void dumpRecording() {
+        if (!ENABLED) {
+            LOGGER.warning("Flight Recorder is not available in this JVM");
+            return;
+        }
+
+        try {
+            recorder.dumpRecording();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to dump the flight recording", e);
+        }
+    }
+}
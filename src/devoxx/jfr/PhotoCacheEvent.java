@@ -0,0 +1,24 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr;
+
+/**
+ * Making sure a speaker photo is in the photo cache
+ */
+public abstract class PhotoCacheEvent {
+
+    public String speaker;
+    public String url;
+    public boolean hit;
+
+    /**
+     * Start timing the event
+     */
+    public abstract void begin();
+
+    /**
+     * End the event and write it to the recording
+     */
+    public abstract void commit();
+}
@@ -0,0 +1,27 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr;
+
+/**
+ * Getting the photo of a speaker for the screen
+ */
+public abstract class PhotoLoadEvent {
+
+    public String speaker;
+    public boolean memoryHit;
+    public boolean cacheHit;
+    public long bytes;
+    /** Nanoseconds */
+    public long decodeTime;
+
+    /**
+     * Start timing the event
+     */
+    public abstract void begin();
+
+    /**
+     * End the event and write it to the recording
+     */
+    public abstract void commit();
+}
@@ -0,0 +1,59 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr;
+
+import java.io.IOException;
+
+/**
+ * The Flight Recorder side of Flight.  The implementation uses jdk.jfr,
+ * which a JDK 8 doesn't have, so it is built separately and only loaded
+ * when Flight Recorder is available.
+ */
+public interface Recorder {
+
+    /**
+     * @return A new download event
+     */
+    DownloadEvent newDownloadEvent();
+
+    /**
+     * @return A new day parse event
+     */
+    DayParseEvent newDayParseEvent();
+
+    /**
+     * @return A new photo cache event
+     */
+    PhotoCacheEvent newPhotoCacheEvent();
+
+    /**
+     * @return A new photo load event
+     */
+    PhotoLoadEvent newPhotoLoadEvent();
+
+    /**
+     * @return A new room switch event
+     */
+    RoomSwitchEvent newRoomSwitchEvent();
+
+    /**
+     * @return A new screen data event
+     */
+    ScreenDataEvent newScreenDataEvent();
+
+    /**
+     * Start the rolling recording, when not running yet
+     *
+     * @param maxAgeHours The age of the oldest data kept
+     * @param maxSizeMB The size of the data kept
+     */
+    void startRecording(int maxAgeHours, int maxSizeMB);
+
+    /**
+     * Write the rolling recording to a file in the working directory
+     *
+     * @throws IOException If the file can't be written
+     */
+    void dumpRecording() throws IOException;
+}
@@ -0,0 +1,24 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr;
+
+/**
+ * Switch to another room, until the schedule of the new room is shown
+ */
+public abstract class RoomSwitchEvent {
+
+    public String fromRoom;
+    public String toRoom;
+    public boolean success;
+
+    /**
+     * Start timing the event
+     */
+    public abstract void begin();
+
+    /**
+     * End the event and write it to the recording
+     */
+    public abstract void commit();
+}
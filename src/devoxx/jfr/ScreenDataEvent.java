@@ -0,0 +1,28 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.jfr;
+
+/**
+ * Rebuild of the screen for a new session
+ */
+public abstract class ScreenDataEvent {
+
+    public String session;
+    public int speakers;
+    /** The number of session texts that changed */
+    public int changedTexts;
+    public int layoutRequests;
+    /** The screen prepared ahead of the session boundary was used */
+    public boolean prepared;
+
+    /**
+     * Start timing the event
+     */
+    public abstract void begin();
+
+    /**
+     * End the event and write it to the recording
+     */
+    public abstract void commit();
+}
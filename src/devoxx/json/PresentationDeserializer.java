@@ -6,23 +6,14 @@ import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonParser;
-import devoxx.ResourceUtil;
+import devoxx.SpeakerStore;
 import devoxx.model.Presentation;
+import devoxx.model.SlotInternTable;
 import devoxx.model.Speaker;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import devoxx.model.StringPool;
 import java.lang.reflect.Type;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  *
@@ -30,15 +21,33 @@ import java.util.logging.Logger;
  */
 public class PresentationDeserializer implements JsonDeserializer<Presentation> {
 
-    private static final String SPEAKERJSON = "speaker.json";
+    private final SpeakerStore speakerStore;
+    private final boolean compact;
+    private final SlotInternTable slots;
     
-    private final Map<String, Speaker> speakerMap;
-    private final String imageCache;
+    public PresentationDeserializer(final SpeakerStore speakerStore) {
+        this(speakerStore, false);
+    }
     
-    public PresentationDeserializer(final Map<String, Speaker> speakerMap,
-                                    final String imageCache) {
-        this.speakerMap = speakerMap;
-        this.imageCache = imageCache;
+    public PresentationDeserializer(final SpeakerStore speakerStore,
+                                    final boolean compact) {
+        this(speakerStore, compact, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param speakerStore Resolves the speakers of the slots
+     * @param compact Build compact presentations
+     * @param slots Table to reuse the presentations of unchanged slots from,
+     * or null to always create new ones
+     */
+    public PresentationDeserializer(final SpeakerStore speakerStore,
+                                    final boolean compact,
+                                    final SlotInternTable slots) {
+        this.speakerStore = speakerStore;
+        this.compact = compact;
+        this.slots = slots;
     }
     
     @Override
@@ -68,16 +77,26 @@ public class PresentationDeserializer implements JsonDeserializer<Presentation>
                 JsonObject speakerObj = speakersArray.get(i).getAsJsonObject();
                 JsonObject speakerLink = speakerObj.get("link").getAsJsonObject();
                 String link = speakerLink.get("href").getAsString();
-                Speaker speaker = speakerMap.get(link.substring(link.lastIndexOf('/') + 1));
+                
+                // Speakers are resolved on demand, this also covers speakers which 
+                // have not yet accepted the terms on the CFP (not in the public list)
+                Speaker speaker = speakerStore.resolve(link);
                 if (speaker != null) {
                     speakers.add(speaker);
-                } else {
-                    // This is a speaker which has not yet accepted the terms on the CFP !! 
-                    // But if still scheduled we might as well load his/her details.
-                    loadSpeakerDetails(link, speakers);
                 }
             }
             
+            // An unchanged slot keeps its presentation instance
+            final String slotId = jsonObject.has("slotId")
+                    ? jsonObject.get("slotId").getAsString() : id;
+            final byte[] contentDigest = slots == null ? null : SlotInternTable.digest(json.toString());
+            if (slots != null) {
+                final Presentation kept = slots.lookup(slotId, contentDigest, speakers);
+                if (kept != null) {
+                    return kept;
+                }
+            }
+
             // Schedule details
             String roomId = jsonObject.get("roomId").getAsString();
             String fromTime = jsonObject.get("fromTimeMillis").getAsString();
@@ -85,42 +104,27 @@ public class PresentationDeserializer implements JsonDeserializer<Presentation>
             String day = jsonObject.get("day").getAsString();
 
             // 
-            // Not sure if this will need to get changed at Devoxx UK : ZoneOffset.ofTotalSeconds(3600)
+            // Not sure if this will need to get changed at Devoxx UK : Presentation.ZONE
             //
-            // UTC+1
-            LocalDateTime start = LocalDateTime.ofEpochSecond(Long.parseLong(fromTime) / 1000, 0, ZoneOffset.ofTotalSeconds(3600));    
-            LocalDateTime end = LocalDateTime.ofEpochSecond(Long.parseLong(toTime) / 1000, 0, ZoneOffset.ofTotalSeconds(3600));    
+            long start = Long.parseLong(fromTime) / 1000;
+            long end = Long.parseLong(toTime) / 1000;
 
-            return new Presentation(id, title, roomId, start, end, 0, summary, speakers.toArray(new Speaker[speakers.size()]), track, talkType);
+            if (compact) {
+                // Only keep one copy of the strings that repeat across presentations
+                track = StringPool.intern(track);
+                talkType = StringPool.intern(talkType);
+                roomId = StringPool.intern(roomId);
+            }
+
+            final Presentation presentation = new Presentation(id, title, roomId, start, end, 0, summary, 
+                    speakers.toArray(new Speaker[speakers.size()]), track, talkType, compact);
+
+            if (slots != null) {
+                slots.put(slotId, contentDigest, presentation);
+            }
+            return presentation;
         } else {
             return null;
         }
     }
-
-    /**
-     * Loading a speaker which was not included in the public speakers list (yet).
-     * 
-     * @param link  the URL for the speaker details 
-     * @param speakers  the list of existing speakers
-     * @throws JsonParseException 
-     */
-    private void loadSpeakerDetails(final String link, 
-                                    final List<Speaker> speakers) throws JsonParseException {
-        try {
-            ResourceUtil.download(link, SPEAKERJSON);
-        } catch (IOException ex) {
-            Logger.getLogger(PresentationDeserializer.class.getName()).log(Level.SEVERE, null, ex);
-        }
-        try(Reader reader = new InputStreamReader(new FileInputStream(new File(SPEAKERJSON)), "UTF-8")){
-            JsonParser parser = new JsonParser();
-            
-            JsonElement root = parser.parse(reader);
-            Speaker notAcceptedSpeaker = new SpeakerDeserializer(imageCache).deserialize(root, null, null);
-            notAcceptedSpeaker.cachePhoto();
-            speakers.add(notAcceptedSpeaker);
-            speakerMap.put(notAcceptedSpeaker.uuid, notAcceptedSpeaker);
-        } catch (IOException ex) {
-            Logger.getLogger(PresentationDeserializer.class.getName()).log(Level.SEVERE, null, ex);
-        }
-    }    
 }
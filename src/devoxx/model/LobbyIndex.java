@@ -0,0 +1,155 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conference wide index of the sessions, keyed by room and time, for the
+ * lobby screen that shows what is on now and next in every room.
+ *
+ * Every room keeps its sessions in start order and a cursor on the first
+ * session that has not ended yet.  As the time only moves forward the
+ * cursor only moves forward too, past each session once, so "current and
+ * next" of a room is a map lookup and an array read.  When the time moves
+ * back (test mode) the cursor is positioned again with a binary search.
+ *
+ * A room is only reindexed when a new schedule snapshot was published for
+ * it, the other rooms are left alone.  Must be used on one thread, the FX
+ * application thread.
+ */
+public final class LobbyIndex {
+
+    private final Map<String, Room> rooms = new HashMap<>();
+    private final List<String> roomIds = new ArrayList<>();
+
+    private static final class Room {
+
+        final long version;
+        final Presentation[] presentations;
+        int cursor;
+        long cursorTime = Long.MIN_VALUE;
+
+        Room(final long version, final List<Presentation> presentations) {
+            this.version = version;
+            this.presentations = presentations.toArray(new Presentation[presentations.size()]);
+        }
+
+        void moveTo(final long now) {
+            if (now < cursorTime) {
+                cursor = firstNotEnded(now);
+            } else {
+                while (cursor < presentations.length && presentations[cursor].toEpochSecond <= now) {
+                    cursor++;
+                }
+            }
+            cursorTime = now;
+        }
+
+        private int firstNotEnded(final long now) {
+            int low = 0;
+            int high = presentations.length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (presentations[middle].toEpochSecond <= now) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Index the schedule of a room, when it is newer than the one indexed
+     *
+     * @param snapshot The latest schedule of the room
+     * @return True when the room was reindexed
+     */
+    public boolean update(final ScheduleSnapshot snapshot) {
+        if (snapshot.roomId == null) {
+            return false;
+        }
+
+        final Room indexed = rooms.get(snapshot.roomId);
+        if (indexed != null && indexed.version == snapshot.version) {
+            return false;
+        }
+
+        if (indexed == null) {
+            roomIds.add(snapshot.roomId);
+        }
+        rooms.put(snapshot.roomId, new Room(snapshot.version, snapshot.presentations));
+        return true;
+    }
+
+    /**
+     * Get the rooms in the order they were first indexed
+     *
+     * @return The room IDs
+     */
+    public List<String> getRoomIds() {
+        return Collections.unmodifiableList(roomIds);
+    }
+
+    /**
+     * Get the session that is on in a room
+     *
+     * @param roomId The room ID
+     * @param now The current time in epoch seconds
+     * @return The session or null when there is none going on
+     */
+    public Presentation current(final String roomId, final long now) {
+        final Room room = rooms.get(roomId);
+        if (room == null) {
+            return null;
+        }
+
+        room.moveTo(now);
+        if (room.cursor < room.presentations.length
+                && room.presentations[room.cursor].fromEpochSecond <= now) {
+            return room.presentations[room.cursor];
+        }
+        return null;
+    }
+
+    /**
+     * Get the next session that starts in a room
+     *
+     * @param roomId The room ID
+     * @param now The current time in epoch seconds
+     * @return The session or null when there are no more sessions
+     */
+    public Presentation next(final String roomId, final long now) {
+        final Room room = rooms.get(roomId);
+        if (room == null) {
+            return null;
+        }
+
+        room.moveTo(now);
+        int index = room.cursor;
+        if (index < room.presentations.length && room.presentations[index].fromEpochSecond <= now) {
+            index++;
+        }
+        return index < room.presentations.length ? room.presentations[index] : null;
+    }
+
+    /**
+     * Get the number of sessions indexed over all rooms
+     *
+     * @return The number of sessions
+     */
+    public int size() {
+        int size = 0;
+        for (Room room : rooms.values()) {
+            size += room.presentations.length;
+        }
+        return size;
+    }
+}
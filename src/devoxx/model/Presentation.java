@@ -3,22 +3,39 @@
  */
 package devoxx.model;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.StringJoiner;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * Model object for conference Speaker.
  *
+ * In compact mode the start and end times are only kept as epoch seconds
+ * and the summary is only kept deflated, which saves a lot of heap on the
+ * Pi.  Use the getters to read these values, they work in both modes.
+ *
  * @author Jasper Potts
  */
 public class Presentation {
 
+    /**
+     * Offset of the schedule times (UTC+1)
+     */
+    public static final ZoneOffset ZONE = ZoneOffset.ofTotalSeconds(3600);
+
     public String id;
     public String title;
     public String room;
     public LocalDateTime fromTime;
     public LocalDateTime toTime;
+    public long fromEpochSecond;
+    public long toEpochSecond;
     public int length;
 
     public String summary;
@@ -26,6 +43,8 @@ public class Presentation {
     public String track;
     public String type;
 
+    private byte[] compressedSummary;
+
     public Presentation() {
         super();   
     }           
@@ -50,19 +69,100 @@ public class Presentation {
                         final Speaker[] speakers,
                         final String track, 
                         final String type) {
+        this(id, title, room, fromTime.toEpochSecond(ZONE), toTime.toEpochSecond(ZONE),
+             length, summary, speakers, track, type, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param id The id of the presentation
+     * @param title The title of the presentation
+     * @param room Which room the presentation is in
+     * @param fromEpochSecond What time the presentation starts
+     * @param toEpochSecond What time the presentation ends
+     * @param length How long the presentation is
+     * @param compact Whether to use the compact representation
+     */
+    public Presentation(final String id, 
+                        final String title, 
+                        final String room,
+                        final long fromEpochSecond, 
+                        final long toEpochSecond, 
+                        final int length,
+                        final String summary, 
+                        final Speaker[] speakers,
+                        final String track, 
+                        final String type,
+                        final boolean compact) {
         this.id = id;
         this.title = title;
         this.room = room;
-        this.fromTime = fromTime;
-        this.toTime = toTime;
+        this.fromEpochSecond = fromEpochSecond;
+        this.toEpochSecond = toEpochSecond;
         this.length = length;
-        this.summary = summary;
         this.speakers = speakers;
         this.track = track;
         this.type = type;
+
+        if (compact) {
+            this.compressedSummary = compress(summary);
+        } else {
+            this.fromTime = LocalDateTime.ofEpochSecond(fromEpochSecond, 0, ZONE);
+            this.toTime = LocalDateTime.ofEpochSecond(toEpochSecond, 0, ZONE);
+            this.summary = summary;
+        }
+    }
+
+    /**
+     * Get the start time
+     *
+     * @return What time the presentation starts
+     */
+    public LocalDateTime getFromTime() {
+        return fromTime != null ? fromTime : LocalDateTime.ofEpochSecond(fromEpochSecond, 0, ZONE);
+    }
+
+    /**
+     * Get the end time
+     *
+     * @return What time the presentation ends
+     */
+    public LocalDateTime getToTime() {
+        return toTime != null ? toTime : LocalDateTime.ofEpochSecond(toEpochSecond, 0, ZONE);
+    }
+
+    /**
+     * Get the summary, inflating it in compact mode
+     *
+     * @return The summary of the presentation
+     */
+    public String getSummary() {
+        return compressedSummary != null ? decompress(compressedSummary) : summary;
+    }
+
+    /**
+     * Get the number of bytes used to store the compressed summary
+     *
+     * @return The compressed size, 0 when not in compact mode
+     */
+    public int getCompressedSummarySize() {
+        return compressedSummary != null ? compressedSummary.length : 0;
+    }
+
+    public boolean isCompact() {
+        return fromTime == null;
     }
     
+    /**
+     * Get the names of the speakers for display
+     *
+     * @return "by" and the names, empty when there are no speakers
+     */
     public String getSpeakerList() {
+        if (speakers.length == 0) {
+            return "";
+        }
         final StringJoiner sj = new StringJoiner(", ");            
             for (Speaker speaker : speakers) {                    
                 sj.add(speaker.fullName);
@@ -70,6 +170,49 @@ public class Presentation {
         return "by " + sj.toString();
     }
 
+    private static byte[] compress(final String text) {
+        if (text == null) {
+            return null;
+        }
+
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(text.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(text.length() / 2);
+            final byte[] buf = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String decompress(final byte[] data) {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            final byte[] buf = new byte[1024];
+            while (!inflater.finished()) {
+                final int count = inflater.inflate(buf);
+                if (count == 0 && inflater.needsInput()) {
+                    break;
+                }
+                out.write(buf, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("Corrupt compressed summary", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
     /**
      * Create a nice readable string representation of the object
      *
@@ -79,8 +222,8 @@ public class Presentation {
     public String toString() {
         return "Presentation{" + "id=" + id
             + ", room=" + room
-            + ", fromTime=" + fromTime
-            + ", toTime=" + toTime
+            + ", fromTime=" + getFromTime()
+            + ", toTime=" + getToTime()
             + ", speakers=" + Arrays.toString(speakers)
             + '}';
     }
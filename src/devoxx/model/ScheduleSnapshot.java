@@ -0,0 +1,60 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the schedule data for one room.  A new snapshot is
+ * built by the data refresh thread and published as a whole, so the render
+ * path can read it without locking and never sees a half filled schedule.
+ */
+public final class ScheduleSnapshot {
+
+    /**
+     * The snapshot used before any data has been retrieved
+     */
+    public static final ScheduleSnapshot EMPTY = new ScheduleSnapshot(0, null,
+            Collections.<Presentation>emptyList(), Collections.<String, Speaker>emptyMap());
+
+    public final long version;
+    public final String roomId;
+    public final List<Presentation> presentations;
+    public final Map<String, Speaker> speakers;
+
+    /**
+     * Constructor
+     *
+     * @param version Version number, incremented for every published snapshot
+     * @param roomId The room the presentations are for
+     * @param presentations The presentations, sorted by start time
+     * @param speakers The speakers, keyed by uuid
+     */
+    public ScheduleSnapshot(final long version,
+                            final String roomId,
+                            final List<Presentation> presentations,
+                            final Map<String, Speaker> speakers) {
+        this.version = version;
+        this.roomId = roomId;
+        this.presentations = Collections.unmodifiableList(new ArrayList<>(presentations));
+        this.speakers = Collections.unmodifiableMap(new HashMap<>(speakers));
+    }
+
+    public boolean isEmpty() {
+        return presentations.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduleSnapshot{" + "version=" + version
+            + ", roomId=" + roomId
+            + ", presentations=" + presentations.size()
+            + ", speakers=" + speakers.size()
+            + '}';
+    }
+}
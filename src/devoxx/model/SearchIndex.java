@@ -0,0 +1,207 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.model;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Full text index of the sessions of several rooms, for the search kiosk.
+ *
+ * The words of the title, summary, track and speaker names of the sessions
+ * of a room are kept sorted, each with the sessions it occurs in.  Every
+ * word of a query is a prefix, so the words it matches are a range of the
+ * sorted words found with a binary search, and the sessions matching all
+ * words of the query are the intersection of a bit set per word.  Accents
+ * and case are ignored.
+ *
+ * A room is indexed on the thread that calls update, the data refresh
+ * thread, and only when a new schedule snapshot was published for it.  The
+ * rooms are published as a whole, so queries on the FX application thread
+ * never lock and never see a half built room.
+ */
+public final class SearchIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private volatile Map<String, Room> rooms = Collections.emptyMap();
+
+    private static final class Room {
+
+        final long version;
+        final Presentation[] presentations;
+        final String[] words;
+        final int[][] postings;
+
+        Room(final long version, final List<Presentation> presentations) {
+            this.version = version;
+            this.presentations = presentations.toArray(new Presentation[presentations.size()]);
+
+            final Map<String, BitSet> occurrences = new HashMap<>();
+            final Set<String> found = new LinkedHashSet<>();
+            for (int i = 0; i < this.presentations.length; i++) {
+                final Presentation presentation = this.presentations[i];
+                found.clear();
+                split(presentation.title, found);
+                split(presentation.getSummary(), found);
+                split(presentation.track, found);
+                if (presentation.speakers != null) {
+                    for (Speaker speaker : presentation.speakers) {
+                        if (speaker != null) {
+                            split(speaker.fullName, found);
+                        }
+                    }
+                }
+                for (String word : found) {
+                    occurrences.computeIfAbsent(word, w -> new BitSet()).set(i);
+                }
+            }
+
+            words = occurrences.keySet().toArray(new String[occurrences.size()]);
+            Arrays.sort(words);
+            postings = new int[words.length][];
+            for (int i = 0; i < words.length; i++) {
+                postings[i] = occurrences.get(words[i]).stream().toArray();
+            }
+        }
+
+        /**
+         * Get the sessions with a word starting with each of the prefixes
+         */
+        BitSet match(final List<String> prefixes) {
+            BitSet matches = null;
+            for (String prefix : prefixes) {
+                final BitSet prefixMatches = new BitSet(presentations.length);
+                for (int i = firstWord(prefix); i < words.length && words[i].startsWith(prefix); i++) {
+                    for (int presentation : postings[i]) {
+                        prefixMatches.set(presentation);
+                    }
+                }
+
+                if (matches == null) {
+                    matches = prefixMatches;
+                } else {
+                    matches.and(prefixMatches);
+                }
+                if (matches.isEmpty()) {
+                    break;
+                }
+            }
+            return matches;
+        }
+
+        private int firstWord(final String prefix) {
+            final int index = Arrays.binarySearch(words, prefix);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    /**
+     * Split a text into lower case words without accents
+     *
+     * @param text The text, may be null
+     * @param words Where to add the words
+     */
+    private static void split(final String text, final Set<String> words) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+
+        final String plain = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("").toLowerCase(Locale.ROOT);
+        for (String word : SEPARATORS.split(plain)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+    }
+
+    /**
+     * Index the schedule of a room, when it is newer than the one indexed
+     *
+     * @param snapshot The latest schedule of the room
+     * @return True when the room was reindexed
+     */
+    public synchronized boolean update(final ScheduleSnapshot snapshot) {
+        if (snapshot.roomId == null) {
+            return false;
+        }
+
+        final Room indexed = rooms.get(snapshot.roomId);
+        if (indexed != null && indexed.version == snapshot.version) {
+            return false;
+        }
+
+        final Map<String, Room> next = new HashMap<>(rooms);
+        next.put(snapshot.roomId, new Room(snapshot.version, snapshot.presentations));
+        rooms = next;
+        return true;
+    }
+
+    /**
+     * Find the sessions that have a word starting with every word of the
+     * query, e.g. "jav pot" finds the sessions on Java by Jasper Potts.
+     *
+     * @param query The words typed
+     * @param limit The maximum number of sessions to return
+     * @return The sessions found, in start order
+     */
+    public List<Presentation> search(final String query, final int limit) {
+        final Set<String> prefixes = new LinkedHashSet<>();
+        split(query, prefixes);
+        if (prefixes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<String> terms = new ArrayList<>(prefixes);
+        final List<Presentation> found = new ArrayList<>();
+        final Map<String, Room> indexed = rooms;
+        for (Room room : indexed.values()) {
+            final BitSet matches = room.match(terms);
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                found.add(room.presentations[i]);
+            }
+        }
+
+        found.sort((a, b) -> Long.compare(a.fromEpochSecond, b.fromEpochSecond));
+        return found.size() > limit ? found.subList(0, limit) : found;
+    }
+
+    /**
+     * Get the number of sessions indexed over all rooms
+     *
+     * @return The number of sessions
+     */
+    public int size() {
+        int size = 0;
+        for (Room room : rooms.values()) {
+            size += room.presentations.length;
+        }
+        return size;
+    }
+
+    /**
+     * Get the number of distinct words indexed over all rooms
+     *
+     * @return The number of words
+     */
+    public int words() {
+        int words = 0;
+        for (Room room : rooms.values()) {
+            words += room.words.length;
+        }
+        return words;
+    }
+}
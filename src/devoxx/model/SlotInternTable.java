@@ -0,0 +1,142 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the presentation of every schedule slot across data refreshes, so a
+ * slot that did not change yields the same Presentation instance and the
+ * display can tell real changes from a plain refresh by reference.
+ *
+ * A slot is the same when the SHA-256 digest of its JSON content is the
+ * same and it resolved to the same Speaker instances (a refreshed speaker
+ * is a new instance).  A 32 bit hash of the content could collide and keep
+ * the old presentation of an edited slot.
+ * Slots that are not seen during a complete update are dropped, e.g. the
+ * slots of the previous room.
+ */
+public final class SlotInternTable {
+
+    private final Map<String, Entry> slots = new HashMap<>();
+
+    private int generation;
+    private long reused;
+    private long created;
+
+    private static final class Entry {
+
+        final byte[] contentDigest;
+        final Presentation presentation;
+        int generation;
+
+        Entry(final byte[] contentDigest, final Presentation presentation, final int generation) {
+            this.contentDigest = contentDigest;
+            this.presentation = presentation;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * Get the presentation kept for an unchanged slot
+     *
+     * @param slotId The slot id
+     * @param contentDigest Digest of the slot content
+     * @param speakers The speakers the slot resolved to
+     * @return The kept presentation, or null when the slot is new or changed
+     */
+    public synchronized Presentation lookup(final String slotId,
+                                            final byte[] contentDigest,
+                                            final List<Speaker> speakers) {
+        final Entry entry = slots.get(slotId);
+
+        if (entry == null || !Arrays.equals(entry.contentDigest, contentDigest)
+                || !isSameSpeakers(entry.presentation.speakers, speakers)) {
+            return null;
+        }
+
+        entry.generation = generation;
+        reused++;
+        return entry.presentation;
+    }
+
+    /**
+     * Get the digest of the content of a slot
+     *
+     * @param content The JSON of the slot
+     * @return The SHA-256 digest
+     */
+    public static byte[] digest(final String content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    /**
+     * Keep the presentation of a new or changed slot
+     *
+     * @param slotId The slot id
+     * @param contentDigest Digest of the slot content
+     * @param presentation The presentation for the slot
+     */
+    public synchronized void put(final String slotId,
+                                 final byte[] contentDigest,
+                                 final Presentation presentation) {
+        slots.put(slotId, new Entry(contentDigest, presentation, generation));
+        created++;
+    }
+
+    /**
+     * Drop the slots that were not seen since the previous call, to be
+     * called after every complete update.
+     */
+    public synchronized void endUpdate() {
+        final Iterator<Entry> entries = slots.values().iterator();
+        while (entries.hasNext()) {
+            if (entries.next().generation != generation) {
+                entries.remove();
+            }
+        }
+        generation++;
+    }
+
+    /**
+     * Get the number of slots that kept their presentation on a refresh
+     *
+     * @return The number of reused presentations
+     */
+    public synchronized long getReused() {
+        return reused;
+    }
+
+    /**
+     * Get the number of presentations created for new or changed slots
+     *
+     * @return The number of created presentations
+     */
+    public synchronized long getCreated() {
+        return created;
+    }
+
+    private static boolean isSameSpeakers(final Speaker[] kept, final List<Speaker> speakers) {
+        if (kept.length != speakers.size()) {
+            return false;
+        }
+        for (int i = 0; i < kept.length; i++) {
+            if (kept[i] != speakers.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
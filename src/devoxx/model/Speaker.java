@@ -3,19 +3,23 @@
  */
 package devoxx.model;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.net.URL;
-import java.net.URLConnection;
-import java.nio.file.Files;
-import java.nio.file.LinkOption;
-import java.nio.file.Paths;
+import devoxx.BackgroundExecutor;
+import devoxx.PhotoCache;
+import devoxx.jfr.Flight;
+import devoxx.jfr.PhotoCacheEvent;
+import devoxx.jfr.PhotoLoadEvent;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javafx.application.Platform;
 import javafx.geometry.Rectangle2D;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -33,9 +37,11 @@ public class Speaker {
     public final String uuid;
     public final String fullName;
     public String downloadURL;
-    public Image photoImage;
     private final String cache;
 
+    /* The decoded photo per size on screen, screens of another resolution use another size */
+    private final Map<Double, Image> photoImages = new ConcurrentHashMap<>(2);
+
     /**
      * Constructor
      *
@@ -58,17 +64,9 @@ public class Speaker {
      * Cache the photo for a speaker if necessary
      */
     public void cachePhoto() {
-        String photoFileName = cache + File.separatorChar + uuid + ".dat";
-
-        /* Nothing to see here, move along */
-        if (Files.exists(Paths.get(photoFileName), LinkOption.NOFOLLOW_LINKS)) {
-            return;
-        }
+        BackgroundExecutor.checkNotFxThread("cache photo for " + fullName);
 
-        LOGGER.log(Level.FINE, "Caching photo for {0}", fullName);
-        File cacheFile = new File(photoFileName);
-
-        if (downloadURL != null && downloadURL.isEmpty()) {
+        if (downloadURL == null || downloadURL.isEmpty()) {
             return;
         }
 
@@ -78,77 +76,200 @@ public class Speaker {
             downloadURL = downloadURL.replace("\\", "/");
         }
 
-        try {
-            final URL imageURL = new URL(downloadURL);
+        final PhotoCacheEvent event = Flight.newPhotoCacheEvent();
+        if (event != null) {
+            event.begin();
+        }
 
-            if (!Files.exists(Paths.get(cache), LinkOption.NOFOLLOW_LINKS)) {
-                Files.createDirectory(Paths.get(cache));
-            }
+        /* The in-memory cache index tells us whether there is anything to do */
+        final boolean hit = PhotoCache.get(cache).fetch(uuid, downloadURL);
 
-            final URLConnection connection = imageURL.openConnection();
-            connection.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.11 (KHTML, like Gecko) Chrome/23.0.1271.95 Safari/537.11");
+        if (event != null) {
+            event.speaker = uuid;
+            event.url = downloadURL;
+            event.hit = hit;
+            event.commit();
+        }
+    }
 
-            try (DataInputStream photoInputStream = new DataInputStream(connection.getInputStream());
-                 DataOutputStream cacheFileOutputStream = new DataOutputStream(new FileOutputStream(cacheFile))) {
-                byte[] buf = new byte[10240];
-                int byteCount;
+    /**
+     * Revalidate the cached photo against the server, dropping the decoded
+     * image when the photo changed.
+     */
+    public void revalidatePhoto() {
+        if (downloadURL == null || downloadURL.isEmpty()) {
+            return;
+        }
 
-                while ((byteCount = photoInputStream.read(buf)) > 0) {
-                    cacheFileOutputStream.write(buf, 0, byteCount);
-                }
-            }
-        } catch (Exception ioe) {
-            LOGGER.log(Level.WARNING, "Unable to read photo for " + fullName + " from " + downloadURL, ioe);
+        if (PhotoCache.get(cache).revalidate(uuid, downloadURL)) {
+            LOGGER.log(Level.FINE, "Photo for {0} changed", fullName);
+            photoImages.clear();
         }
     }
 
     /**
-     * Get the photo for a speaker
+     * Release the decoded photo, e.g. when it's no longer shown.  It is
+     * loaded again from the photo cache when needed.
+     */
+    public void releasePhoto() {
+        photoImages.clear();
+    }
+
+    /**
+     * Get the decoded photos kept in memory
      *
-     * @return
+     * @return The photos, one per size on screen
      */
-    public ImageView getPhoto() {
-        ImageView photo;
+    public Collection<Image> getDecodedPhotos() {
+        return photoImages.values();
+    }
 
-        String photoFileName = cache + File.separatorChar + uuid + ".dat";
+    /**
+     * Get the photo for a speaker.  The returned view is empty until the
+     * image has been loaded from the cache (or downloaded) on a background
+     * thread, after which it is filled in on the FX application thread.
+     *
+     * @param size The size of the (round) photo on screen
+     * @return the view showing the speaker photo
+     */
+    public ImageView getPhoto(final double size) {
+        final ImageView photo = new ImageView();
+        photo.setPreserveRatio(true);
+        photo.setClip(new Circle(size / 2, size / 2, size / 2));
 
         LOGGER.log(Level.FINER, "New speaker: {0}", fullName);
 
-        /* Load the image from the cache if it's available, otherwise go out 
-     * to the URL, load it and cache it.
-         */
-        if (Files.exists(Paths.get(photoFileName), LinkOption.NOFOLLOW_LINKS)) {
-            LOGGER.log(Level.FINE, "Photo for {0} found in cache", fullName);
-            LOGGER.log(Level.FINER, "Cache file: {0}", photoFileName);
-
-            try {
-                photoImage = new Image(new FileInputStream(photoFileName));
-            } catch (FileNotFoundException ex) {
-                LOGGER.severe("FileNotFound error, which cannot happen!");
+        final Image image = photoImages.get(size);
+        if (image != null) {
+            showPhoto(photo, image, size);
+
+            if (Flight.ENABLED) {
+                final PhotoLoadEvent event = Flight.newPhotoLoadEvent();
+                event.speaker = uuid;
+                event.memoryHit = true;
+                event.commit();
             }
         } else {
-            LOGGER.log(Level.FINE, "Downloading photo for {0}", fullName);
-            cachePhoto();
-            photoImage = new Image(downloadURL, 150, 150, true, true);
+            BackgroundExecutor.supply(() -> loadPhoto(size))
+                .whenComplete((loaded, ex) -> {
+                    if (ex != null) {
+                        LOGGER.log(Level.WARNING, "Unable to load photo for " + fullName, ex);
+                    } else if (loaded != null) {
+                        Platform.runLater(() -> {
+                            photoImages.put(size, loaded);
+                            showPhoto(photo, loaded, size);
+                        });
+                    }
+                });
+        }
+        return photo;
+    }
+
+    /**
+     * Load the image from the cache if it's available, otherwise go out 
+     * to the URL, load it and cache it.  Must not be called on the FX thread.
+     *
+     * @param size The size of the photo on screen
+     * @return the decoded image or null if there is none
+     */
+    private Image loadPhoto(final double size) {
+        BackgroundExecutor.checkNotFxThread("load photo for " + fullName);
+
+        final PhotoLoadEvent event = Flight.newPhotoLoadEvent();
+        if (event != null) {
+            event.begin();
+            event.speaker = uuid;
+        }
+
+        try {
+            final PhotoCache photoCache = PhotoCache.get(cache);
+            byte[] data = photoCache.read(uuid, downloadURL);
+
+            if (event != null) {
+                event.cacheHit = data != null;
+            }
+
+            if (data == null) {
+                LOGGER.log(Level.FINE, "Downloading photo for {0}", fullName);
+                cachePhoto();
+                data = photoCache.read(uuid, downloadURL);
+            }
+
+            if (data != null) {
+                LOGGER.log(Level.FINE, "Photo for {0} found in cache", fullName);
+                final long start = System.nanoTime();
+                final Image decoded = decode(data, size);
+                if (event != null) {
+                    event.bytes = data.length;
+                    event.decodeTime = System.nanoTime() - start;
+                }
+                return decoded;
+            }
+
+            if (downloadURL == null || downloadURL.isEmpty()) {
+                return null;
+            }
+
+            return new Image(downloadURL, size, size, true, true, false);
+        } finally {
+            if (event != null) {
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Decode a photo with its short side at the size on screen, the round
+     * view crops the long side.  Fitting it in a square of that size would
+     * make the short side smaller, and scaling it up again blurs it.
+     */
+    private static Image decode(final byte[] data, final double size) {
+        double width = size;
+        double height = size;
+
+        // Only the header is read for the dimensions, the pixels are decoded once by JavaFX
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (readers.hasNext()) {
+                final ImageReader reader = readers.next();
+                try {
+                    reader.setInput(in, true, true);
+                    if (reader.getWidth(0) < reader.getHeight(0)) {
+                        height = 0;
+                    } else {
+                        width = 0;
+                    }
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Unable to read the photo dimensions: {0}", e.getMessage());
         }
 
-        /* Create an ImageView for the Image */
-        photo = new ImageView(photoImage);
+        return new Image(new ByteArrayInputStream(data), width, height, true, true);
+    }
+
+    /**
+     * Show a loaded image in the (round) speaker photo view.
+     */
+    private static void showPhoto(final ImageView photo, final Image image, final double size) {
+        if (image.isError()) {
+            return;
+        }
 
-        if (photoImage.getWidth() < photoImage.getHeight()) {
-            photo.setFitWidth(150);
+        if (image.getWidth() < image.getHeight()) {
+            photo.setFitWidth(size);
         } else {
-            photo.setFitHeight(150);
+            photo.setFitHeight(size);
         }
 
-        photo.setPreserveRatio(true);
-        final double squareDim = Math.min(photoImage.getWidth(), photoImage.getHeight());
-        photo.setViewport(new Rectangle2D((photoImage.getWidth() - squareDim) / 2,
-                (photoImage.getHeight() - squareDim) / 2,
+        final double squareDim = Math.min(image.getWidth(), image.getHeight());
+        photo.setViewport(new Rectangle2D((image.getWidth() - squareDim) / 2,
+                (image.getHeight() - squareDim) / 2,
                 squareDim, squareDim));
-        photo.setClip(new Circle(75, 75, 75));
+        photo.setImage(image);
         LOGGER.finest("Speaker photo loaded");
-        return photo;
     }
 
     /**
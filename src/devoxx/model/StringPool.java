@@ -0,0 +1,43 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pool used in compact model mode so repeated strings (tracks, talk types,
+ * rooms) are only kept once on the heap, no matter how many presentations
+ * and data refreshes refer to them.
+ */
+public final class StringPool {
+
+    private static final ConcurrentMap<String, String> POOL = new ConcurrentHashMap<>();
+
+    private StringPool() {
+    }
+
+    /**
+     * Get the pooled instance of a string
+     *
+     * @param value The string
+     * @return The canonical instance with the same value
+     */
+    public static String intern(final String value) {
+        if (value == null) {
+            return null;
+        }
+        final String pooled = POOL.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    /**
+     * Get the number of pooled strings
+     *
+     * @return the pool size
+     */
+    public static int size() {
+        return POOL.size();
+    }
+}
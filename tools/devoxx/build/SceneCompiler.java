@@ -0,0 +1,564 @@
+/*
+ * Devoxx digital signage project
+ */
+package devoxx.build;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.imageio.ImageIO;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.ProcessingInstruction;
+
+/**
+ * Turns an FXML file into a Java class that builds the same scene graph
+ * directly, so the application doesn't parse the FXML and resolve its
+ * properties through reflection at startup.
+ *
+ * For FXMLDocument.fxml the class FXMLDocumentScene is generated in the
+ * package of the controller, with a method create(controller, scale) that
+ * builds the nodes, injects the fx:id nodes in the fields of the controller,
+ * wires the #method event handlers and initializes the controller, just like
+ * FXMLLoader.load() does.  The bundled bitmaps are decoded once, at their
+ * size for the display scale, so the display doesn't decode them again.
+ *
+ * Only the FXML this project uses is supported: instances with a no-argument
+ * constructor, the Color, Font and Image builders, attributes that are
+ * primitives, strings, enums, colors or $references, and property elements.
+ * Anything else fails the build rather than producing a different scene.
+ */
+public final class SceneCompiler {
+
+    private static final String FX_NAMESPACE = "http://javafx.com/fxml/1";
+
+    private final String fxmlName;
+    private File fxmlDirectory;
+    private final String className;
+    private final List<String> importedPackages = new ArrayList<>();
+    private final Map<String, Class<?>> imports = new TreeMap<>();
+    private final Map<String, Class<?>> variables = new HashMap<>();
+    private final StringBuilder body = new StringBuilder();
+
+    private String controllerPackage;
+    private String controllerName;
+    private int counter;
+
+    private SceneCompiler(final String fxmlName) {
+        this.fxmlName = fxmlName;
+        this.className = fxmlName.substring(0, fxmlName.lastIndexOf('.')) + "Scene";
+    }
+
+    /**
+     * Generate the scene class
+     *
+     * @param args The FXML file and the directory to write the source to
+     * @throws Exception When the FXML can't be read or is not supported
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: SceneCompiler <fxml file> <output directory>");
+            System.exit(1);
+        }
+
+        final File fxml = new File(args[0]);
+        final SceneCompiler compiler = new SceneCompiler(fxml.getName());
+        final String source = compiler.compile(fxml);
+
+        final File directory = new File(args[1], compiler.controllerPackage.replace('.', File.separatorChar));
+        directory.mkdirs();
+        Files.write(new File(directory, compiler.className + ".java").toPath(),
+                source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String compile(final File fxml) throws Exception {
+        fxmlDirectory = fxml.getAbsoluteFile().getParentFile();
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        final Document document = factory.newDocumentBuilder().parse(fxml);
+
+        for (Node node = document.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof ProcessingInstruction
+                    && "import".equals(((ProcessingInstruction) node).getTarget())) {
+                addImport(((ProcessingInstruction) node).getData().trim());
+            }
+        }
+
+        final Element root = document.getDocumentElement();
+        final String controller = root.getAttributeNS(FX_NAMESPACE, "controller");
+        if (controller.isEmpty()) {
+            throw new IOException(fxmlName + ": the root has no fx:controller");
+        }
+        controllerPackage = controller.substring(0, controller.lastIndexOf('.'));
+        controllerName = controller.substring(controller.lastIndexOf('.') + 1);
+
+        final String rootVariable = instance(root);
+
+        return source(rootVariable);
+    }
+
+    private void addImport(final String name) throws IOException {
+        if (name.endsWith(".*")) {
+            importedPackages.add(name.substring(0, name.length() - 2));
+        } else {
+            final Class<?> type = load(name);
+            if (type == null) {
+                throw new IOException(fxmlName + ": unknown import " + name);
+            }
+            imports.put(type.getSimpleName(), type);
+        }
+    }
+
+    private Class<?> resolve(final String name) throws IOException {
+        Class<?> type = imports.get(name);
+        if (type != null) {
+            return type;
+        }
+
+        for (String importedPackage : importedPackages) {
+            final Class<?> candidate = load(importedPackage + "." + name);
+            if (candidate != null) {
+                if (type != null) {
+                    throw new IOException(fxmlName + ": ambiguous class " + name);
+                }
+                type = candidate;
+            }
+        }
+
+        if (type == null) {
+            throw new IOException(fxmlName + ": unknown class " + name);
+        }
+        imports.put(name, type);
+        return type;
+    }
+
+    private static Class<?> load(final String name) {
+        try {
+            // Don't initialize, that would need the JavaFX toolkit
+            return Class.forName(name, false, SceneCompiler.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Emit the statements that create an instance element
+     *
+     * @return The variable that holds the instance
+     */
+    private String instance(final Element element) throws IOException {
+        final Class<?> type = resolve(element.getLocalName());
+        final String fxId = element.getAttributeNS(FX_NAMESPACE, "id");
+        final String variable;
+        if (fxId.isEmpty()) {
+            counter++;
+            variable = Character.toLowerCase(type.getSimpleName().charAt(0))
+                    + type.getSimpleName().substring(1) + counter;
+        } else {
+            variable = fxId;
+        }
+        if (variables.containsKey(variable)) {
+            throw new IOException(fxmlName + ": duplicate fx:id " + variable);
+        }
+
+        final Map<String, String> attributes = attributes(element);
+
+        switch (type.getName()) {
+            case "javafx.scene.paint.Color":
+                statement("final Color %s = new Color(%s, %s, %s, %s);", variable,
+                        number(attributes.remove("red"), "0.0"),
+                        number(attributes.remove("green"), "0.0"),
+                        number(attributes.remove("blue"), "0.0"),
+                        number(attributes.remove("opacity"), "1.0"));
+                break;
+            case "javafx.scene.text.Font":
+                final String name = attributes.remove("name");
+                final String size = number(attributes.remove("size"), "Font.getDefault().getSize()");
+                if (name == null) {
+                    statement("final Font %s = Font.font(%s);", variable, size);
+                } else {
+                    statement("final Font %s = new Font(%s, %s);", variable, string(name), size);
+                }
+                break;
+            case "javafx.scene.image.Image":
+                final String url = attributes.remove("url");
+                final double[] imageSize = imageSize(url,
+                        attributes.remove("requestedWidth"), attributes.remove("requestedHeight"));
+                statement("final Image %s = new Image(%s, %s * scale, %s * scale, %s, %s, %s);", variable,
+                        location(url),
+                        Double.toString(imageSize[0]),
+                        Double.toString(imageSize[1]),
+                        bool(attributes.remove("preserveRatio")),
+                        bool(attributes.remove("smooth")),
+                        bool(attributes.remove("backgroundLoading")));
+                break;
+            default:
+                if (!Modifier.isPublic(type.getModifiers())) {
+                    throw new IOException(fxmlName + ": " + type.getName() + " is not public");
+                }
+                try {
+                    type.getConstructor();
+                } catch (NoSuchMethodException e) {
+                    throw new IOException(fxmlName + ": " + type.getName() + " has no default constructor");
+                }
+                statement("final %s %s = new %s();", type.getSimpleName(), variable, type.getSimpleName());
+                break;
+        }
+        variables.put(variable, type);
+
+        if (!attributes.isEmpty() && isBuilt(type)) {
+            throw new IOException(fxmlName + ": unsupported " + type.getSimpleName()
+                    + " attributes " + attributes.keySet());
+        }
+
+        final boolean isNode = javafx.scene.Node.class.isAssignableFrom(type);
+        if (isNode && !fxId.isEmpty() && !attributes.containsKey("id")) {
+            // FXMLLoader uses the fx:id as the node id when there is none
+            attributes.put("id", fxId);
+        }
+
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            property(type, variable, attribute.getKey(), attribute.getValue());
+        }
+
+        final List<String> defaultValues = new ArrayList<>();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element) {
+                final Element childElement = (Element) child;
+                if (Character.isLowerCase(childElement.getLocalName().charAt(0))) {
+                    propertyElement(type, variable, childElement);
+                } else {
+                    defaultValues.add(instance(childElement));
+                }
+            }
+        }
+        if (!defaultValues.isEmpty()) {
+            final javafx.beans.DefaultProperty defaultProperty
+                    = type.getAnnotation(javafx.beans.DefaultProperty.class);
+            if (defaultProperty == null) {
+                throw new IOException(fxmlName + ": " + type.getSimpleName() + " has no default property");
+            }
+            values(type, variable, defaultProperty.value(), defaultValues);
+        }
+
+        if (isNode && !fxId.isEmpty()) {
+            statement("controller.%s = %s;", fxId, variable);
+        }
+
+        return variable;
+    }
+
+    private static boolean isBuilt(final Class<?> type) {
+        return type == javafx.scene.paint.Color.class
+                || type == javafx.scene.text.Font.class
+                || type == javafx.scene.image.Image.class;
+    }
+
+    private static Map<String, String> attributes(final Element element) {
+        final Map<String, String> attributes = new TreeMap<>();
+        final NamedNodeMap nodes = element.getAttributes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            final Attr attribute = (Attr) nodes.item(i);
+            if (attribute.getNamespaceURI() == null) {
+                attributes.put(attribute.getLocalName(), attribute.getValue());
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * Emit the statements for a property element such as children or font
+     */
+    private void propertyElement(final Class<?> type, final String variable,
+                                 final Element element) throws IOException {
+        final List<String> values = new ArrayList<>();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element) {
+                values.add(instance((Element) child));
+            } else if (child.getNodeType() == Node.TEXT_NODE && !child.getNodeValue().trim().isEmpty()) {
+                throw new IOException(fxmlName + ": unsupported text in <" + element.getLocalName() + ">");
+            }
+        }
+        values(type, variable, element.getLocalName(), values);
+    }
+
+    private void values(final Class<?> type, final String variable,
+                        final String property, final List<String> values) throws IOException {
+        final Method getter = method(type, "get" + capitalize(property), 0);
+        if (getter != null && List.class.isAssignableFrom(getter.getReturnType())) {
+            statement("%s.%s().addAll(%s);", variable, getter.getName(), String.join(", ", values));
+        } else if (values.size() == 1) {
+            final Method setter = setter(type, property);
+            final Class<?> valueType = variables.get(values.get(0));
+            if (!wrap(setter.getParameterTypes()[0]).isAssignableFrom(valueType)) {
+                throw new IOException(fxmlName + ": " + valueType.getSimpleName()
+                        + " can't be set as " + type.getSimpleName() + "." + property);
+            }
+            statement("%s.%s(%s);", variable, setter.getName(), values.get(0));
+        } else {
+            throw new IOException(fxmlName + ": " + type.getSimpleName() + "." + property
+                    + " is not a list");
+        }
+    }
+
+    /**
+     * Emit the statement for a property attribute
+     */
+    private void property(final Class<?> type, final String variable,
+                          final String property, final String value) throws IOException {
+        if (property.startsWith("on") && value.startsWith("#")) {
+            handler(type, variable, property, value.substring(1));
+            return;
+        }
+
+        final Method setter = setter(type, property);
+        final Class<?> valueType = setter.getParameterTypes()[0];
+        final String expression;
+
+        if (value.startsWith("$")) {
+            final String reference = value.substring(1);
+            final Class<?> referenceType = variables.get(reference);
+            if (referenceType == null) {
+                throw new IOException(fxmlName + ": unknown reference " + value);
+            }
+            if (!wrap(valueType).isAssignableFrom(referenceType)) {
+                throw new IOException(fxmlName + ": " + referenceType.getSimpleName()
+                        + " can't be set as " + type.getSimpleName() + "." + property);
+            }
+            expression = reference;
+        } else {
+            expression = literal(type, property, valueType, value);
+        }
+
+        statement("%s.%s(%s);", variable, setter.getName(), expression);
+    }
+
+    private String literal(final Class<?> type, final String property,
+                           final Class<?> valueType, final String value) throws IOException {
+        try {
+            if (valueType == double.class || valueType == Double.class) {
+                return Double.toString(Double.parseDouble(value));
+            } else if (valueType == float.class || valueType == Float.class) {
+                return Float.toString(Float.parseFloat(value)) + "f";
+            } else if (valueType == int.class || valueType == Integer.class) {
+                return Integer.toString(Integer.parseInt(value));
+            } else if (valueType == boolean.class || valueType == Boolean.class) {
+                return bool(value);
+            } else if (valueType == String.class || valueType == Object.class) {
+                return string(value);
+            } else if (valueType.isEnum()) {
+                for (Object constant : valueType.getEnumConstants()) {
+                    if (((Enum<?>) constant).name().equals(value)) {
+                        return typeName(valueType) + "." + value;
+                    }
+                }
+                throw new IllegalArgumentException("not a " + valueType.getSimpleName());
+            } else if (valueType.isAssignableFrom(javafx.scene.paint.Color.class)) {
+                return color(value);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException(fxmlName + ": invalid value '" + value + "' for "
+                    + type.getSimpleName() + "." + property + ": " + e.getMessage());
+        }
+        throw new IOException(fxmlName + ": unsupported type " + valueType.getName()
+                + " of " + type.getSimpleName() + "." + property);
+    }
+
+    private String color(final String value) {
+        final String name = value.toUpperCase();
+        try {
+            if (javafx.scene.paint.Color.class.getField(name).getType() == javafx.scene.paint.Color.class) {
+                return typeName(javafx.scene.paint.Color.class) + "." + name;
+            }
+        } catch (NoSuchFieldException e) {
+            // Not a named color
+        }
+        javafx.scene.paint.Color.web(value);
+        return typeName(javafx.scene.paint.Color.class) + ".web(" + string(value) + ")";
+    }
+
+    /**
+     * Emit the statement for an event handler attribute such as
+     * onMouseClicked="#quitApp", the controller method has to be accessible
+     * from the generated class and accept the event.
+     */
+    private void handler(final Class<?> type, final String variable,
+                         final String property, final String method) throws IOException {
+        final Method setter = setter(type, property);
+        statement("%s.%s(controller::%s);", variable, setter.getName(), method);
+    }
+
+    private Method setter(final Class<?> type, final String property) throws IOException {
+        final Method setter = method(type, "set" + capitalize(property), 1);
+        if (setter == null) {
+            throw new IOException(fxmlName + ": " + type.getSimpleName() + " has no property " + property);
+        }
+        return setter;
+    }
+
+    private static Method method(final Class<?> type, final String name, final int parameters) {
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == parameters
+                    && !Modifier.isStatic(method.getModifiers())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private String location(final String url) throws IOException {
+        if (url == null) {
+            throw new IOException(fxmlName + ": Image without url");
+        }
+        if (url.startsWith("@")) {
+            // Relative to the FXML file, which is in the package of the generated class
+            return className + ".class.getResource(" + string(url.substring(1)) + ").toExternalForm()";
+        }
+        return string(url);
+    }
+
+    /**
+     * Get the size an image is decoded at for scale 1: the requested size,
+     * or the size of the bitmap for a bundled bitmap without one
+     *
+     * @return The width and height, 0 to leave them to the bitmap
+     */
+    private double[] imageSize(final String url, final String requestedWidth,
+                               final String requestedHeight) throws IOException {
+        final double[] size = {
+            Double.parseDouble(number(requestedWidth, "0.0")),
+            Double.parseDouble(number(requestedHeight, "0.0"))
+        };
+        if (size[0] > 0 || size[1] > 0 || url == null || !url.startsWith("@")) {
+            return size;
+        }
+
+        final File file = new File(fxmlDirectory, url.substring(1));
+        final BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException(fxmlName + ": unreadable image " + file);
+        }
+        size[0] = image.getWidth();
+        size[1] = image.getHeight();
+        return size;
+    }
+
+    private static String number(final String value, final String defaultValue) {
+        return value == null ? defaultValue : Double.toString(Double.parseDouble(value));
+    }
+
+    private static String bool(final String value) {
+        return Boolean.toString(Boolean.parseBoolean(value));
+    }
+
+    private static String string(final String value) {
+        final StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                case '\r':
+                    literal.append("\\r");
+                    break;
+                case '\t':
+                    literal.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private String typeName(final Class<?> type) {
+        imports.putIfAbsent(type.getSimpleName(), type);
+        return imports.get(type.getSimpleName()) == type ? type.getSimpleName() : type.getCanonicalName();
+    }
+
+    private static String capitalize(final String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static Class<?> wrap(final Class<?> type) {
+        if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == int.class) {
+            return Integer.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        }
+        return type;
+    }
+
+    private void statement(final String format, final Object... args) {
+        body.append("        ").append(String.format(format, args)).append('\n');
+    }
+
+    private String source(final String rootVariable) {
+        final Class<?> rootType = variables.get(rootVariable);
+        final StringBuilder source = new StringBuilder();
+
+        source.append("/*\n")
+                .append(" * Generated from ").append(fxmlName).append(" by devoxx.build.SceneCompiler, do not edit\n")
+                .append(" */\n")
+                .append("package ").append(controllerPackage).append(";\n\n");
+        for (Class<?> type : imports.values()) {
+            if (!type.getPackage().getName().equals("java.lang")) {
+                source.append("import ").append(type.getCanonicalName()).append(";\n");
+            }
+        }
+        source.append("import javafx.fxml.Initializable;\n\n")
+                .append("/**\n")
+                .append(" * Builds the scene of ").append(fxmlName).append(" without FXMLLoader\n")
+                .append(" */\n")
+                .append("public final class ").append(className).append(" {\n\n")
+                .append("    private ").append(className).append("() {\n")
+                .append("    }\n\n")
+                .append("    /**\n")
+                .append("     * Build the scene graph and wire it to the controller\n")
+                .append("     *\n")
+                .append("     * @param controller The controller to inject the nodes in\n")
+                .append("     * @param scale The display scale the bitmaps are decoded for\n")
+                .append("     * @return The root of the scene graph\n")
+                .append("     */\n")
+                .append("    public static ").append(rootType.getSimpleName()).append(" create(final ")
+                .append(controllerName).append(" controller, final double scale) {\n")
+                .append(body)
+                .append("\n")
+                .append("        if (controller instanceof Initializable) {\n")
+                .append("            ((Initializable) controller).initialize(\n")
+                .append("                    ").append(className).append(".class.getResource(")
+                .append(string(fxmlName)).append("), null);\n")
+                .append("        }\n")
+                .append("        return ").append(rootVariable).append(";\n")
+                .append("    }\n")
+                .append("}\n");
+        return source.toString();
+    }
+}